@@ -1,5 +1,17 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * Main application class.
@@ -13,17 +25,252 @@ public class App {
     public static final String ANSI_CYAN = "\u001B[36m";
     public static final String ANSI_BOLD = "\u001B[1m";
     public static final String[] SUBJECTS = { "Maths", "English", "Science", "Social" };
+    private static final int NAME_SEARCH_LIMIT = 10;
 
     private final GradeTracker gradeTracker;
     private final Scanner scanner;
 
     public App() {
-        this.gradeTracker = new GradeTracker();
+        this(GradeTracker.DATA_FILE);
+    }
+
+    public App(String dataFile) {
+        this.gradeTracker = new GradeTracker(dataFile);
         this.scanner = new Scanner(System.in);
     }
 
+    /**
+     * Starts the interactive console, or runs a batch command.
+     * Usage: App [dataFile]
+     *        App --import-grades grades.csv [dataFile]
+     *        App --report (className|--all) [--csv|--json] [--out dir] [--threads n] [--term name] [dataFile]
+     *        App --close-term name [dataFile]
+     *        App --convert source target (".bin" selects the binary format, ".shards" a shard directory)
+     *        App --serve [port] [dataFile]
+     */
     public static void main(String[] args) {
-        new App().run();
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = GradeServer.DEFAULT_PORT;
+            if (args.length > 1) {
+                try {
+                    port = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Usage: App --serve [port] [dataFile]");
+                    System.exit(2);
+                }
+            }
+            serve(port, args.length > 2 ? args[2] : GradeTracker.DATA_FILE);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--convert")) {
+            if (args.length != 3) {
+                System.err.println("Usage: App --convert source target");
+                System.exit(2);
+            }
+            try {
+                GradeTracker.convert(args[1], args[2]);
+                System.out.println("Converted " + args[1] + " to " + args[2]);
+            } catch (IOException e) {
+                System.err.println("Error converting data file: " + e.getMessage());
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+        if (args.length > 0 && args[0].equals("--close-term")) {
+            if (args.length < 2) {
+                System.err.println("Usage: App --close-term name [dataFile]");
+                System.exit(2);
+            }
+            System.exit(closeTerm(args[1], args.length > 2 ? args[2] : GradeTracker.DATA_FILE));
+        }
+        if (args.length > 0 && args[0].equals("--report")) {
+            System.exit(generateReports(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--import-grades")) {
+            if (args.length < 2) {
+                System.err.println("Usage: App --import-grades grades.csv [dataFile]");
+                System.exit(2);
+            }
+            String dataFile = args.length > 2 ? args[2] : GradeTracker.DATA_FILE;
+            System.exit(importGrades(args[1], dataFile));
+        }
+        String dataFile = args.length > 0 ? args[0] : GradeTracker.DATA_FILE;
+        new App(dataFile).run();
+    }
+
+    /**
+     * Runs the HTTP API until the process is stopped; the shutdown hook saves and closes the tracker.
+     */
+    private static void serve(int port, String dataFile) {
+        GradeTracker tracker = new GradeTracker(dataFile);
+        try {
+            GradeServer server = new GradeServer(tracker, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                tracker.close();
+            }));
+            server.start();
+            System.out.println("Serving " + dataFile + " on http://localhost:" + server.getPort() + "/");
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            tracker.close();
+            System.exit(1);
+        }
+    }
+
+    private static int closeTerm(String termName, String dataFile) {
+        try (GradeTracker tracker = new GradeTracker(dataFile)) {
+            TermHistory.Term term = tracker.closeTerm(termName);
+            System.out.printf("Closed term '%s': %d students, %d changed since the previous term%n",
+                    term.getName(), term.getStudentCount(), term.getChangedCount());
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error closing term: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int importGrades(String csvFile, String dataFile) {
+        Path csv = Paths.get(csvFile);
+        Path rejectReport = csv.resolveSibling(csv.getFileName() + ".rejected.csv");
+        try (GradeTracker tracker = new GradeTracker(dataFile)) {
+            GradeImporter.Result result = new GradeImporter(tracker).importFile(csv, rejectReport);
+            System.out.printf("Imported %d of %d rows in %.1f ms (%.0f rows/sec), %d rejected%n",
+                    result.getApplied(), result.getRows(), result.getElapsedMillis(), result.getRowsPerSecond(),
+                    result.getRejected());
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected rows written to " + rejectReport);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error importing grades: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Renders class reports without the interactive console. Reports go to
+     * stdout, or with --out to one file per class, rendered in parallel by
+     * --threads workers. Rows are streamed from each class ranking a page at
+     * a time, so memory use does not grow with the number of students.
+     * With --term the reports show a closed term instead of the current grades.
+     */
+    private static int generateReports(String[] args) {
+        String usage = "Usage: App --report (className|--all) [--csv|--json] [--out dir] [--threads n] [--term name] [dataFile]";
+        String target = null;
+        String dataFile = GradeTracker.DATA_FILE;
+        ReportRenderer.Format format = ReportRenderer.Format.TEXT;
+        Path outDir = null;
+        String termName = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--csv":
+                        format = ReportRenderer.Format.CSV;
+                        break;
+                    case "--json":
+                        format = ReportRenderer.Format.JSON;
+                        break;
+                    case "--out":
+                        outDir = Paths.get(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--term":
+                        termName = args[++i];
+                        break;
+                    default:
+                        if (target == null) {
+                            target = args[i];
+                        } else {
+                            dataFile = args[i];
+                        }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            target = null;
+        }
+        if (target == null) {
+            System.err.println(usage);
+            return 2;
+        }
+
+        try (GradeTracker tracker = new GradeTracker(dataFile)) {
+            Collection<String> classNames = tracker.getClassNames();
+            Function<String, Iterable<Student>> reports = tracker::getClassReportRows;
+            if (termName != null) {
+                Optional<TermHistory.Term> term = tracker.getTerm(termName);
+                if (!term.isPresent()) {
+                    System.err.println("Error: Term '" + termName + "' has not been closed.");
+                    return 1;
+                }
+                classNames = term.get().getClassNames();
+                reports = term.get()::getClassReport;
+            }
+            List<String> classes = new ArrayList<>();
+            if (target.equals("--all")) {
+                classes.addAll(classNames);
+            } else {
+                classNames.stream().filter(target::equalsIgnoreCase).findFirst()
+                        .ifPresent(classes::add);
+                if (classes.isEmpty()) {
+                    System.err.println("Error: Class '" + target + "' does not exist.");
+                    return 1;
+                }
+            }
+            Collections.sort(classes);
+
+            long start = System.nanoTime();
+            if (outDir == null) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                ReportRenderer renderer = new ReportRenderer(format, tracker.getMetrics());
+                for (String className : classes) {
+                    renderer.render(className, reports.apply(className), out);
+                }
+                out.flush();
+            } else {
+                Files.createDirectories(outDir);
+                writeReportFiles(tracker, reports, classes, format, outDir, threads);
+                System.err.printf("Wrote %d reports to %s in %.1f ms%n", classes.size(), outDir,
+                        (System.nanoTime() - start) / 1_000_000.0);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error writing reports: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void writeReportFiles(GradeTracker tracker, Function<String, Iterable<Student>> reports,
+            List<String> classes, ReportRenderer.Format format, Path outDir, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, classes.size())));
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (String className : classes) {
+                Path file = outDir.resolve(className.replaceAll("[^A-Za-z0-9._-]+", "_") + format.extension());
+                tasks.add(pool.submit(() -> {
+                    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                        new ReportRenderer(format, tracker.getMetrics()).render(className, reports.apply(className), out);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Report generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
     public void run() {
@@ -49,7 +296,17 @@ public class App {
                     manageClasses();
                     break;
                 case "6":
+                    displayStatistics();
+                    break;
+                case "7":
+                    findStudentByName();
+                    break;
+                case "8":
+                    displayAnalyticsReport();
+                    break;
+                case "9":
                     gradeTracker.saveStudents();
+                    gradeTracker.close();
                     System.out.println(ANSI_YELLOW + "\nData saved. Exiting application. Goodbye!" + ANSI_RESET);
                     return;
                 default:
@@ -69,7 +326,10 @@ public class App {
         System.out.println(" [3] View Individual Student Details");
         System.out.println(" [4] Display Class Summary Report");
         System.out.println(" [5] Manage Classes");
-        System.out.println(" [6] Save and Exit");
+        System.out.println(" [6] Statistics");
+        System.out.println(" [7] Find Student by Name");
+        System.out.println(" [8] Analytics Report");
+        System.out.println(" [9] Save and Exit");
         System.out.println("----------------------------------------");
     }
 
@@ -114,7 +374,8 @@ public class App {
         System.out.println(ANSI_YELLOW + "\n--- Available Classes ---" + ANSI_RESET);
         List<String> classList = new ArrayList<>(gradeTracker.getClassNames());
         for (int i = 0; i < classList.size(); i++) {
-            System.out.printf(" [%d] %s%n", i + 1, classList.get(i));
+            System.out.printf(" [%d] %s (%d students)%n", i + 1, classList.get(i),
+                    gradeTracker.getClassSize(classList.get(i)));
         }
         System.out.println("-------------------------");
         System.out.print("Choose a class for the new student (enter number): ");
@@ -148,19 +409,20 @@ public class App {
         if (studentOpt.isPresent()) {
             Student student = studentOpt.get();
             System.out.println("Entering grades for " + ANSI_BOLD + student.getName() + ANSI_RESET);
+            Map<String, Grade> grades = new LinkedHashMap<>();
             for (String subject : SUBJECTS) {
                 while (true) {
                     System.out.print("  - Enter grade for " + subject + " (0-100): ");
                     try {
                         double score = Double.parseDouble(scanner.nextLine());
-                        if (score >= 0 && score <= 100) {
+                        if (Grade.isValidScore(score)) {
                             Grade grade;
                             if (score == 0) {
                                 grade = handleZeroScore();
                             } else {
-                                grade = new Grade(score, "Graded");
+                                grade = Grade.graded(score);
                             }
-                            student.addSubjectGrade(subject, grade);
+                            grades.put(subject, grade);
                             break;
                         } else {
                             System.out.println(ANSI_RED + "Invalid grade. Must be between 0 and 100." + ANSI_RESET);
@@ -170,6 +432,7 @@ public class App {
                     }
                 }
             }
+            student.addSubjectGrades(grades);
             System.out.println(
                     ANSI_GREEN + "\n✔ All grades for " + student.getName() + " have been updated." + ANSI_RESET);
         } else {
@@ -188,11 +451,11 @@ public class App {
             String choice = scanner.nextLine();
             switch (choice) {
                 case "1":
-                    return new Grade(0, "Graded");
+                    return Grade.graded(0);
                 case "2":
-                    return new Grade(0, "Absent");
+                    return Grade.ABSENT;
                 case "3":
-                    return new Grade(0, "Malpractice");
+                    return Grade.MALPRACTICE;
                 default:
                     System.out.println(ANSI_RED + "  Invalid choice. Please enter 1, 2, or 3." + ANSI_RESET);
             }
@@ -205,7 +468,7 @@ public class App {
         Optional<Student> studentOpt = gradeTracker.findStudentById(id);
 
         if (studentOpt.isPresent()) {
-            Student s = studentOpt.get();
+            Student s = studentOpt.get().snapshot();
             System.out.println("\n" + ANSI_YELLOW + "--- Student Details ---" + ANSI_RESET);
             System.out.println(ANSI_BOLD + "ID:        " + ANSI_RESET + s.getStudentId());
             System.out.println(ANSI_BOLD + "Name:      " + ANSI_RESET + s.getName());
@@ -216,6 +479,9 @@ public class App {
             }
             System.out.println(ANSI_BOLD + "Total Marks: " + ANSI_RESET + s.getTotalMarks());
             System.out.println(ANSI_BOLD + "Remark:      " + ANSI_RESET + s.getRemark());
+            System.out.println(ANSI_BOLD + "Class Rank:  " + ANSI_RESET + gradeTracker.getClassRank(studentOpt.get())
+                    + " of " + gradeTracker.getClassSize(s.getStudentClass()));
+            printGradeTrend(s);
             System.out.println(ANSI_YELLOW + "-----------------------" + ANSI_RESET);
         } else {
             System.out.println(ANSI_RED + "Student with ID '" + id + "' not found." + ANSI_RESET);
@@ -223,11 +489,68 @@ public class App {
         pressEnterToContinue();
     }
 
+    /**
+     * Shows the student's grades at the end of each closed term, then now.
+     * Prints nothing until a term has been closed.
+     */
+    private void printGradeTrend(Student current) {
+        Map<String, Student> trend = new LinkedHashMap<>(gradeTracker.getGradeTrend(current.getStudentId()));
+        if (trend.isEmpty()) {
+            return;
+        }
+        trend.put("Current", current);
+        System.out.println(ANSI_BOLD + "Grade History:" + ANSI_RESET);
+        StringBuilder header = new StringBuilder(String.format("  %-16s", "Term"));
+        for (String subject : SUBJECTS) {
+            header.append(String.format(" %-11s", subject));
+        }
+        System.out.println(header.append(String.format(" %-8s %s", "Total", "Remark")));
+        for (Map.Entry<String, Student> entry : trend.entrySet()) {
+            Student student = entry.getValue();
+            StringBuilder row = new StringBuilder(String.format("  %-16s", entry.getKey()));
+            for (String subject : SUBJECTS) {
+                Grade grade = student.getSubjectGrades().get(subject);
+                row.append(String.format(" %-11s", grade != null ? grade.toString() : "-"));
+            }
+            System.out.println(row.append(String.format(" %-8s %s", student.getTotalMarks(), student.getRemark())));
+        }
+    }
+
+    private void findStudentByName() {
+        System.out.print("Enter name or start of name: ");
+        String query = scanner.nextLine().trim();
+        if (query.isEmpty()) {
+            System.out.println(ANSI_RED + "Student name cannot be empty." + ANSI_RESET);
+            pressEnterToContinue();
+            return;
+        }
+        System.out.print("Class to search (press Enter for all classes): ");
+        String className = scanner.nextLine().trim();
+        List<Student> matches = gradeTracker.findStudentsByName(query, className.isEmpty() ? null : className,
+                NAME_SEARCH_LIMIT);
+
+        if (matches.isEmpty()) {
+            System.out.println(ANSI_RED + "No students found matching '" + query + "'." + ANSI_RESET);
+        } else {
+            System.out.println("\n" + ANSI_YELLOW + "--- Search Results (best " + NAME_SEARCH_LIMIT + ") ---" + ANSI_RESET);
+            System.out.printf(ANSI_BOLD + "%-8s | %-25s | %-15s | %-11s%n" + ANSI_RESET, "ID", "Name", "Class",
+                    "Total Marks");
+            System.out.println("-------------------------------------------------------------------");
+            for (Student student : matches) {
+                System.out.printf("%-8s | %-25s | %-15s | %-11s%n", student.getStudentId(), student.getName(),
+                        student.getStudentClass(), student.getTotalMarks());
+            }
+            System.out.println(ANSI_YELLOW + "Use option [3] with an ID for full details." + ANSI_RESET);
+        }
+        pressEnterToContinue();
+    }
+
     private void displaySummaryReport() {
         System.out.println(ANSI_YELLOW + "\n--- Select Class for Report ---" + ANSI_RESET);
         List<String> classList = new ArrayList<>(gradeTracker.getClassNames());
         for (int i = 0; i < classList.size(); i++) {
-            System.out.printf(" [%d] %s%n", i + 1, classList.get(i));
+            System.out.printf(" [%d] %s (%d students)%n", i + 1, classList.get(i),
+                    gradeTracker.getClassSize(classList.get(i)));
         }
         System.out.println(" [" + (classList.size() + 1) + "] Back to Main Menu");
         System.out.println("-------------------------------");
@@ -236,12 +559,11 @@ public class App {
             int choice = Integer.parseInt(scanner.nextLine());
             if (choice > 0 && choice <= classList.size()) {
                 String chosenClass = classList.get(choice - 1);
-                List<Student> studentsInClass = gradeTracker.getStudentsByClass(chosenClass);
-
-                studentsInClass.sort(Comparator.comparing(Student::getTotalMarks)
-                        .thenComparing(Student::getMathsAndScienceTotal).reversed());
-
+                List<Student> studentsInClass = gradeTracker.getClassReport(chosenClass);
+                TrackerMetrics metrics = gradeTracker.getMetrics();
+                long start = metrics.start();
                 printReportTable(studentsInClass, chosenClass);
+                metrics.record(TrackerMetrics.Operation.RENDER_REPORT, start);
 
             } else if (choice == classList.size() + 1) {
                 return;
@@ -286,38 +608,25 @@ public class App {
     private void printStatisticsFooter(List<Student> students) {
         String line = "---------------------------------------------------------------------------------------------------------------------------------";
         System.out.println(line);
+        ClassStatistics stats = ClassStatistics.compute(students);
 
         // --- SECTION 1: Subject Performance (Highest, Lowest, Average) ---
         System.out.println(ANSI_YELLOW + ANSI_BOLD + "Subject Performance Summary:" + ANSI_RESET);
         System.out.printf(ANSI_BOLD + "%-10s | %-30s | %-30s | %-10s%n" + ANSI_RESET, "Subject", "Highest Scorer",
                 "Lowest Scorer", "Average");
 
-        for (String subject : SUBJECTS) {
-            List<Student> gradedStudents = students.stream()
-                    .filter(s -> s.getSubjectGrades().get(subject).getStatus().equals("Graded"))
-                    .collect(Collectors.toList());
-
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
             String highestStr = "N/A";
             String lowestStr = "N/A";
             String avgStr = "N/A";
 
-            if (!gradedStudents.isEmpty()) {
-                double avg = gradedStudents.stream()
-                        .mapToDouble(s -> s.getSubjectGrades().get(subject).getScore())
-                        .average().orElse(0.0);
-                avgStr = String.format("%.2f", avg);
-
-                Student highestScorer = gradedStudents.stream()
-                        .max(Comparator.comparing(s -> s.getSubjectGrades().get(subject).getScore())).get();
-                highestStr = String.format("%.1f (%s)", highestScorer.getSubjectGrades().get(subject).getScore(),
-                        highestScorer.getName());
-
-                Student lowestScorer = gradedStudents.stream()
-                        .min(Comparator.comparing(s -> s.getSubjectGrades().get(subject).getScore())).get();
-                lowestStr = String.format("%.1f (%s)", lowestScorer.getSubjectGrades().get(subject).getScore(),
-                        lowestScorer.getName());
+            if (subject.getGradedCount() > 0) {
+                avgStr = String.format("%.2f", subject.getAverage());
+                highestStr = String.format("%.1f (%s)", subject.getHighest(), subject.getHighestScorer().getName());
+                lowestStr = String.format("%.1f (%s)", subject.getLowest(), subject.getLowestScorer().getName());
             }
-            System.out.printf("%-10s | %-30s | %-30s | %-10s%n", subject, highestStr, lowestStr, avgStr);
+            System.out.printf("%-10s | %-30s | %-30s | %-10s%n", SUBJECTS[i], highestStr, lowestStr, avgStr);
         }
         System.out.println(); // Add a blank line for spacing
 
@@ -325,28 +634,110 @@ public class App {
         System.out.println(ANSI_YELLOW + ANSI_BOLD + "Subject Distribution Summary:" + ANSI_RESET);
         System.out.printf(ANSI_BOLD + "%-10s | %-15s | %-15s | %-15s | %-15s%n" + ANSI_RESET, "Subject",
                 "Passed (>=25)", "Failed (<25)", "Absent", "Malpractice");
-        for (String subject : SUBJECTS) {
-            long passed = students.stream().map(s -> s.getSubjectGrades().get(subject))
-                    .filter(g -> g.getStatus().equals("Graded") && g.getScore() >= 25).count();
-            long failed = students.stream().map(s -> s.getSubjectGrades().get(subject))
-                    .filter(g -> g.getStatus().equals("Graded") && g.getScore() < 25).count();
-            long absent = students.stream().map(s -> s.getSubjectGrades().get(subject))
-                    .filter(g -> g.getStatus().equals("Absent")).count();
-            long malpractice = students.stream().map(s -> s.getSubjectGrades().get(subject))
-                    .filter(g -> g.getStatus().equals("Malpractice")).count();
-            System.out.printf("%-10s | %-15d | %-15d | %-15d | %-15d%n", subject, passed, failed, absent, malpractice);
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            System.out.printf("%-10s | %-15d | %-15d | %-15d | %-15d%n", SUBJECTS[i], subject.getPassed(),
+                    subject.getFailed(), subject.getAbsent(), subject.getMalpractice());
         }
         System.out.println(); // Add a blank line for spacing
 
         // --- SECTION 3: Overall Class Summary ---
         System.out.println(ANSI_YELLOW + ANSI_BOLD + "Overall Class Summary:" + ANSI_RESET);
-        long totalStudents = students.size();
-        long passedCount = students.stream().filter(s -> s.getRemark().equals("Pass")).count();
-        long failedCount = students.stream().filter(s -> s.getRemark().equals("Fail")).count();
-        long malpracticeCount = students.stream().filter(s -> s.getRemark().equals("Malpractice")).count();
         System.out.printf("Total Students: " + ANSI_BOLD + "%-5d" + ANSI_RESET + " | Passed: " + ANSI_GREEN + "%-5d"
                 + ANSI_RESET + " | Failed: " + ANSI_RED + "%-5d" + ANSI_RESET + " | Malpractice: " + ANSI_RED + "%-5d%n"
-                + ANSI_RESET, totalStudents, passedCount, failedCount, malpracticeCount);
+                + ANSI_RESET, stats.getStudentCount(), stats.getPassedCount(), stats.getFailedCount(),
+                stats.getMalpracticeCount());
+    }
+
+    /**
+     * Shows score percentiles and a histogram per subject for one class or the whole school.
+     */
+    private void displayAnalyticsReport() {
+        System.out.print("Class for analytics (press Enter for the whole school): ");
+        String input = scanner.nextLine().trim();
+        String className = null;
+        if (!input.isEmpty()) {
+            Optional<String> match = gradeTracker.getClassNames().stream().filter(input::equalsIgnoreCase).findFirst();
+            if (!match.isPresent()) {
+                System.out.println(ANSI_RED + "Class '" + input + "' does not exist." + ANSI_RESET);
+                pressEnterToContinue();
+                return;
+            }
+            className = match.get();
+        }
+        ScoreDistribution[] distributions = gradeTracker.getScoreDistributions(className);
+
+        clearConsole();
+        String line = "-----------------------------------------------------------------------------------------------------------";
+        System.out.println(ANSI_CYAN + line.replace("-", "="));
+        System.out.println("                          " + ANSI_BOLD + "Score Analytics for: "
+                + (className != null ? className : "Whole School") + ANSI_RESET + ANSI_CYAN);
+        System.out.println(line.replace("-", "=") + ANSI_RESET);
+
+        // --- SECTION 1: Percentiles of graded scores ---
+        System.out.println(ANSI_YELLOW + ANSI_BOLD + "Score Percentiles (graded scores only):" + ANSI_RESET);
+        String format = "%-10s | %8s | %7s | %7s | %7s | %7s | %7s | %7s | %7s | %7s%n";
+        System.out.printf(ANSI_BOLD + format + ANSI_RESET, "Subject", "Graded", "Mean", "Min", "P10", "P25", "Median",
+                "P75", "P90", "Max");
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            ScoreDistribution distribution = distributions[i];
+            if (distribution.getCount() == 0) {
+                System.out.printf(format, SUBJECTS[i], 0, "N/A", "N/A", "N/A", "N/A", "N/A", "N/A", "N/A", "N/A");
+                continue;
+            }
+            double[] p = distribution.getPercentiles(10, 25, 50, 75, 90);
+            System.out.printf("%-10s | %8d | %7.2f | %7.1f | %7.1f | %7.1f | %7.1f | %7.1f | %7.1f | %7.1f%n",
+                    SUBJECTS[i], distribution.getCount(), distribution.getMean(), distribution.getMin(), p[0], p[1],
+                    p[2], p[3], p[4], distribution.getMax());
+        }
+        System.out.println(); // Add a blank line for spacing
+
+        // --- SECTION 2: Histogram in 10-point bands ---
+        System.out.println(ANSI_YELLOW + ANSI_BOLD + "Score Distribution (students per 10-point band):" + ANSI_RESET);
+        StringBuilder header = new StringBuilder(String.format("%-10s", "Subject"));
+        for (int band = 0; band < 10; band++) {
+            header.append(String.format(" | %7s", band * 10 + "-" + (band == 9 ? 100 : band * 10 + 9)));
+        }
+        System.out.println(ANSI_BOLD + header + ANSI_RESET);
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            StringBuilder row = new StringBuilder(String.format("%-10s", SUBJECTS[i]));
+            for (long count : distributions[i].getBands(10)) {
+                row.append(String.format(" | %7d", count));
+            }
+            System.out.println(row);
+        }
+        System.out.println(line);
+        pressEnterToContinue();
+    }
+
+    /**
+     * Shows operation latencies, I/O counters and dataset size since startup.
+     */
+    private void displayStatistics() {
+        clearConsole();
+        TrackerMetrics metrics = gradeTracker.getMetrics();
+        System.out.println(ANSI_YELLOW + "--- Statistics ---" + ANSI_RESET);
+        System.out.printf("Students: %d | Classes: %d%n", gradeTracker.getStudentCount(),
+                gradeTracker.getClassNames().size());
+        if (!metrics.isEnabled()) {
+            System.out.println("Metrics are turned off (-D" + TrackerMetrics.METRICS_PROPERTY + "=false).");
+            pressEnterToContinue();
+            return;
+        }
+        System.out.printf("Bytes read: %,d | Bytes written: %,d%n%n", metrics.getBytesRead(),
+                metrics.getBytesWritten());
+        String format = "%-15s | %10s | %10s | %10s | %10s | %10s%n";
+        System.out.printf(ANSI_BOLD + format + ANSI_RESET, "Operation", "Count", "Mean (ms)", "p50 (ms)",
+                "p99 (ms)", "Max (ms)");
+        System.out.println("--------------------------------------------------------------------------------");
+        for (TrackerMetrics.Operation operation : TrackerMetrics.Operation.values()) {
+            TrackerMetrics.Histogram histogram = metrics.getHistogram(operation);
+            System.out.printf("%-15s | %10d | %10.3f | %10.3f | %10.3f | %10.3f%n", operation.getLabel(),
+                    histogram.getCount(), histogram.getMeanMillis(), histogram.getPercentileMillis(50),
+                    histogram.getPercentileMillis(99), histogram.getMaxMillis());
+        }
+        System.out.println("\nRecord these as JFR events with -XX:StartFlightRecording (tracker.Operation, tracker.Dataset).");
+        pressEnterToContinue();
     }
 
     private void pressEnterToContinue() {
@@ -0,0 +1,91 @@
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Debounced background saves. changed() only records a timestamp; the
+ * save runs on a daemon thread once no change has arrived for the quiet
+ * period, or once the oldest unsaved change reaches the maximum delay, so a
+ * steady stream of edits still gets saved. A burst of changes costs one save.
+ */
+public class AutosaveScheduler implements AutoCloseable {
+    public static final long DEFAULT_QUIET_MILLIS = 2_000;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 30_000;
+
+    private final Runnable save;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long lastChange;
+    private volatile long firstChange;
+
+    /**
+     * @param save           The save to run; called on the scheduler's thread, never concurrently.
+     * @param quietMillis    How long changes must pause before saving.
+     * @param maxDelayMillis Longest a change waits to be saved.
+     */
+    public AutosaveScheduler(Runnable save, long quietMillis, long maxDelayMillis) {
+        this.save = save;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietMillis, maxDelayMillis));
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Pending saves are dropped on close; a running one is not interrupted mid-write.
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Notes a change. Never blocks and never touches the disk.
+     */
+    public void changed() {
+        long now = System.nanoTime();
+        lastChange = now;
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            firstChange = now;
+            schedule(quietNanos);
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        try {
+            executor.schedule(this::tick, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed; the journal still holds the change.
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        long quietLeft = lastChange + quietNanos - now;
+        long maxLeft = firstChange + maxDelayNanos - now;
+        if (quietLeft > 0 && maxLeft > 0) {
+            schedule(Math.min(quietLeft, maxLeft));
+            return;
+        }
+        // Clear first: a change made during the save schedules the next one.
+        scheduled.set(false);
+        try {
+            save.run();
+        } catch (RuntimeException e) {
+            System.err.println("Error during autosave: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels any pending save and waits for a running one to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
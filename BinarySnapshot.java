@@ -0,0 +1,410 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary alternative to students.json, read through a memory-mapped file.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   magic, version, studentCount, nextId, subjectCount, classCount,
+ *          stringCount, recordsOffset, heapOffset (9 ints)
+ * strings  stringCount x (unsigned short length, UTF-8 bytes):
+ *          subjects, then the registered class names, then any other
+ *          student classes and grade statuses
+ * records  studentCount fixed-width records, sorted by student ID:
+ *          idOffset, nameOffset, nameLength (ints), idLength, classRef (shorts),
+ *          then per subject a double score and a short statusRef
+ * heap     UTF-8 bytes of IDs and names
+ * </pre>
+ * Opening a snapshot reads only the header and the string table, so it
+ * costs the same for any number of students (unless the table holds
+ * strings that may be unknown statuses; see checkStatuses). A student is decoded when it
+ * is first asked for, found by binary search over the sorted records.
+ */
+public class BinarySnapshot {
+    public static final String FILE_EXTENSION = ".bin";
+
+    private static final int MAGIC = 0x53475442; // "SGTB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 9 * Integer.BYTES;
+    private static final int RECORD_FIXED_BYTES = 3 * Integer.BYTES + 2 * Short.BYTES;
+    private static final int GRADE_BYTES = Double.BYTES + Short.BYTES;
+    private static final short NO_STRING = -1; // null class or status
+    private static final short NO_GRADE = -2; // subject missing from the student
+
+    private final ByteBuffer buffer;
+    private final int studentCount;
+    private final int nextId;
+    private final String[] strings;
+    private final Grade.Status[] statuses; // By string index; null for strings that are not a status.
+    private final int subjectCount;
+    private final int classCount;
+    private final int recordsOffset;
+    private final int recordBytes;
+    private final int heapOffset;
+
+    private BinarySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary student snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        this.studentCount = buffer.getInt(8);
+        this.nextId = buffer.getInt(12);
+        this.subjectCount = buffer.getInt(16);
+        this.classCount = buffer.getInt(20);
+        this.strings = new String[buffer.getInt(24)];
+        this.recordsOffset = buffer.getInt(28);
+        this.heapOffset = buffer.getInt(32);
+        this.recordBytes = RECORD_FIXED_BYTES + subjectCount * GRADE_BYTES;
+
+        this.statuses = new Grade.Status[strings.length];
+        int position = HEADER_BYTES;
+        for (int i = 0; i < strings.length; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            strings[i] = decode(position + Short.BYTES, length);
+            statuses[i] = Grade.Status.find(strings[i]);
+            position += Short.BYTES + length;
+        }
+        checkStatuses();
+    }
+
+    /**
+     * Fails the open if a grade refers to a string that is not a known
+     * status, so a file from an older version with a status label this one
+     * does not know is never loaded (and later saved) with that label lost.
+     * The extra strings are normally all statuses, and then no record is read.
+     */
+    private void checkStatuses() throws IOException {
+        boolean unknownStrings = false;
+        for (int i = subjectCount + classCount; i < strings.length; i++) {
+            unknownStrings |= statuses[i] == null;
+        }
+        if (!unknownStrings) {
+            return;
+        }
+        // Unregistered class names or unknown statuses; only the records can tell which.
+        for (int index = 0; index < studentCount; index++) {
+            int grade = recordsOffset + index * recordBytes + RECORD_FIXED_BYTES;
+            for (int s = 0; s < subjectCount; s++, grade += GRADE_BYTES) {
+                short ref = buffer.getShort(grade + Double.BYTES);
+                if (ref >= 0 && statuses[ref] == null) {
+                    throw new IOException("Unknown grade status \"" + strings[ref] + "\" for student " + idAt(index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot file. The mapping stays valid after the file is
+     * replaced, so a tracker can keep decoding from it while compacting.
+     *
+     * @param file The snapshot to open.
+     * @return The opened snapshot.
+     * @throws IOException If the file cannot be mapped or is not a snapshot.
+     */
+    public static BinarySnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinarySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return true if the file exists and starts with the snapshot magic number.
+     */
+    public static boolean isBinary(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if snapshots written to this path should use the binary format.
+     */
+    public static boolean usesBinaryFormat(Path file) {
+        return file.getFileName().toString().endsWith(FILE_EXTENSION);
+    }
+
+    // Getters
+    public int size() {
+        return studentCount;
+    }
+
+    /**
+     * @return The next unused numeric student ID at the time of writing.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    public List<String> getClassNames() {
+        return Arrays.asList(strings).subList(subjectCount, subjectCount + classCount);
+    }
+
+    /**
+     * Finds a student's record without decoding any other record.
+     *
+     * @param studentId The exact student ID.
+     * @return The record index, or -1 if the snapshot has no such student.
+     */
+    public int indexOf(String studentId) {
+        byte[] key = studentId.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = studentCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareId(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The ID stored in a record.
+     */
+    public String idAt(int index) {
+        int record = recordsOffset + index * recordBytes;
+        return decode(heapOffset + buffer.getInt(record), buffer.getShort(record + 12));
+    }
+
+    /**
+     * Decodes one record into a new Student with no listener.
+     *
+     * @param index      The record index.
+     * @param gradeStore Columnar store for the grades, or null to keep a map per student.
+     * @return The student.
+     */
+    public Student read(int index, GradeStore gradeStore) {
+        int record = recordsOffset + index * recordBytes;
+        String id = decode(heapOffset + buffer.getInt(record), buffer.getShort(record + 12));
+        int nameLength = buffer.getInt(record + 8);
+        String name = nameLength < 0 ? null : decode(heapOffset + buffer.getInt(record + 4), nameLength);
+        String studentClass = string(buffer.getShort(record + 14));
+
+        Student student = gradeStore != null
+                ? new Student(id, name, studentClass, gradeStore)
+                : new Student(id, name, studentClass);
+        int grade = record + RECORD_FIXED_BYTES;
+        for (int s = 0; s < subjectCount; s++, grade += GRADE_BYTES) {
+            short status = buffer.getShort(grade + Double.BYTES);
+            if (status == NO_GRADE) {
+                continue;
+            }
+            if (gradeStore != null && GradeStore.subjectOrdinal(strings[s]) < 0) {
+                System.err.println("Warning: skipping unknown subject \"" + strings[s] + "\" of student " + id
+                        + " (not stored in columnar mode)");
+                continue;
+            }
+            student.addSubjectGrade(strings[s], Grade.of(buffer.getDouble(grade), status(status)));
+        }
+        return student;
+    }
+
+    private int compareId(int index, byte[] key) {
+        int record = recordsOffset + index * recordBytes;
+        int length = buffer.getShort(record + 12);
+        if (length != key.length) {
+            return Integer.compare(length, key.length);
+        }
+        int offset = heapOffset + buffer.getInt(record);
+        for (int i = 0; i < length; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(offset + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private String string(short ref) {
+        return ref == NO_STRING ? null : strings[ref];
+    }
+
+    /**
+     * @return The status a grade refers to; a null status reads as "Not Graded".
+     * @throws IllegalStateException If the string referred to is not a status; open() rules this out.
+     */
+    private Grade.Status status(short ref) {
+        if (ref == NO_STRING) {
+            return Grade.Status.NOT_GRADED;
+        }
+        if (statuses[ref] == null) {
+            throw new IllegalStateException("Unknown grade status in snapshot: " + strings[ref]);
+        }
+        return statuses[ref];
+    }
+
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a snapshot. Each student is copied with snapshot() first, so
+     * its grades are consistent.
+     *
+     * @param file       Destination file, overwritten if it exists.
+     * @param students   Students by ID.
+     * @param classNames The registered class names.
+     * @throws IOException If the file cannot be written or a string is too long.
+     */
+    public static void write(Path file, Map<String, Student> students, Collection<String> classNames)
+            throws IOException {
+        Map<String, Integer> table = new LinkedHashMap<>();
+        for (String subject : App.SUBJECTS) {
+            table.putIfAbsent(subject, table.size());
+        }
+        List<Entry> entries = new ArrayList<>(students.size());
+        int nextId = 1;
+        for (Map.Entry<String, Student> e : students.entrySet()) {
+            Student student = e.getValue().snapshot();
+            entries.add(new Entry(e.getKey(), student));
+            for (String subject : student.getSubjectGrades().keySet()) {
+                table.putIfAbsent(subject, table.size());
+            }
+            nextId = Math.max(nextId, numericId(e.getKey()) + 1);
+        }
+        int subjectCount = table.size();
+        for (String className : classNames) {
+            table.putIfAbsent(className, table.size());
+        }
+        int classCount = table.size() - subjectCount;
+        for (Entry entry : entries) {
+            ref(table, entry.student.getStudentClass());
+            for (Grade grade : entry.student.getSubjectGrades().values()) {
+                ref(table, grade.getStatus().getLabel());
+            }
+        }
+        if (table.size() > Short.MAX_VALUE) {
+            throw new IOException("Too many distinct class names and statuses for a binary snapshot");
+        }
+        // Shorter IDs first, then unsigned bytes: the order indexOf searches in.
+        entries.sort((a, b) -> a.id.length != b.id.length
+                ? Integer.compare(a.id.length, b.id.length)
+                : Arrays.compareUnsigned(a.id, b.id));
+
+        List<byte[]> encodedStrings = new ArrayList<>(table.size());
+        int stringBytes = 0;
+        for (String value : table.keySet()) {
+            byte[] bytes = utf8(value, 0xFFFF);
+            encodedStrings.add(bytes);
+            stringBytes += Short.BYTES + bytes.length;
+        }
+        String[] subjects = table.keySet().toArray(new String[0]);
+        int recordBytes = RECORD_FIXED_BYTES + subjectCount * GRADE_BYTES;
+        long recordsOffset = HEADER_BYTES + (long) stringBytes;
+        long heapOffset = recordsOffset + (long) entries.size() * recordBytes;
+        long heapBytes = 0;
+        for (Entry entry : entries) {
+            heapBytes += entry.id.length + (entry.name != null ? entry.name.length : 0);
+        }
+        if (heapOffset + heapBytes > Integer.MAX_VALUE) {
+            throw new IOException("Too many students for a binary snapshot");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+                1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            out.writeInt(nextId);
+            out.writeInt(subjectCount);
+            out.writeInt(classCount);
+            out.writeInt(table.size());
+            out.writeInt((int) recordsOffset);
+            out.writeInt((int) heapOffset);
+            for (byte[] bytes : encodedStrings) {
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+
+            int heapPosition = 0;
+            for (Entry entry : entries) {
+                Map<String, Grade> grades = entry.student.getSubjectGrades();
+                out.writeInt(heapPosition);
+                heapPosition += entry.id.length;
+                out.writeInt(heapPosition);
+                out.writeInt(entry.name != null ? entry.name.length : -1);
+                heapPosition += entry.name != null ? entry.name.length : 0;
+                out.writeShort(entry.id.length);
+                out.writeShort(ref(table, entry.student.getStudentClass()));
+                for (int s = 0; s < subjectCount; s++) {
+                    Grade grade = grades.get(subjects[s]);
+                    out.writeDouble(grade != null ? grade.getScore() : 0);
+                    out.writeShort(grade != null ? ref(table, grade.getStatus().getLabel()) : NO_GRADE);
+                }
+            }
+            for (Entry entry : entries) {
+                out.write(entry.id);
+                if (entry.name != null) {
+                    out.write(entry.name);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        final byte[] id;
+        final byte[] name;
+        final Student student;
+
+        Entry(String id, Student student) throws IOException {
+            this.id = utf8(id, Short.MAX_VALUE);
+            this.name = student.getName() != null ? student.getName().getBytes(StandardCharsets.UTF_8) : null;
+            this.student = student;
+        }
+    }
+
+    private static short ref(Map<String, Integer> table, String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer ref = table.putIfAbsent(value, table.size());
+        return (short) (ref != null ? ref : table.size() - 1);
+    }
+
+    private static byte[] utf8(String value, int maxLength) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxLength) {
+            throw new IOException("String too long for a binary snapshot: " + value.substring(0, 20) + "...");
+        }
+        return bytes;
+    }
+
+    private static int numericId(String id) {
+        try {
+            return Integer.parseInt(id.substring(1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index from class name to the students enrolled in it.
+ * Class names are matched case-insensitively; keys are normalized once
+ * on insert so a lookup costs one hash probe instead of a full scan.
+ * Each class also keeps a live ClassRanking in report order.
+ *
+ * Safe for concurrent use: writers lock only the class they change, and
+ * readers of a member list never lock at all.
+ */
+public class ClassIndex {
+    private final Map<String, Members> studentsByClass = new ConcurrentHashMap<>();
+    private final Map<String, ClassRanking> rankings = new ConcurrentHashMap<>();
+
+    /**
+     * Read-only list of a class's students. Writers publish a new
+     * (array, size) pair on every change, so a reader always sees a
+     * consistent prefix without taking a lock.
+     */
+    private static final class Members extends AbstractList<Student> implements RandomAccess {
+        private static final class State {
+            final Student[] items;
+            final int size;
+
+            State(Student[] items, int size) {
+                this.items = items;
+                this.size = size;
+            }
+        }
+
+        private volatile State state = new State(new Student[8], 0);
+
+        synchronized void append(Student student) {
+            State current = state;
+            Student[] items = current.items;
+            if (current.size == items.length) {
+                items = Arrays.copyOf(items, items.length + (items.length >> 1));
+            }
+            items[current.size] = student;
+            state = new State(items, current.size + 1);
+        }
+
+        synchronized void delete(Student student) {
+            State current = state;
+            for (int i = 0; i < current.size; i++) {
+                if (current.items[i] == student) {
+                    // Copy so readers still holding the old array are unaffected.
+                    Student[] items = new Student[current.items.length];
+                    System.arraycopy(current.items, 0, items, 0, i);
+                    System.arraycopy(current.items, i + 1, items, i, current.size - i - 1);
+                    state = new State(items, current.size - 1);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public Student get(int index) {
+            State current = state;
+            if (index < 0 || index >= current.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+            }
+            return current.items[index];
+        }
+
+        @Override
+        public int size() {
+            return state.size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            State current = state;
+            return Arrays.copyOf(current.items, current.size, Object[].class);
+        }
+    }
+
+    /**
+     * Adds a student under its class.
+     *
+     * @param student The student to index.
+     */
+    public void add(Student student) {
+        String key = normalize(student.getStudentClass());
+        studentsByClass.computeIfAbsent(key, k -> new Members()).append(student);
+        rankings.computeIfAbsent(key, k -> new ClassRanking()).add(student);
+    }
+
+    /**
+     * Repositions a student in its class ranking after its grades changed.
+     *
+     * @param student The student whose totals changed.
+     */
+    public void update(Student student) {
+        ClassRanking ranking = rankings.get(normalize(student.getStudentClass()));
+        if (ranking != null) {
+            ranking.update(student);
+        }
+    }
+
+    /**
+     * Removes a student from its class, if present.
+     *
+     * @param student The student to drop from the index.
+     */
+    public void remove(Student student) {
+        String key = normalize(student.getStudentClass());
+        Members members = studentsByClass.get(key);
+        if (members != null) {
+            members.delete(student);
+        }
+        ClassRanking ranking = rankings.get(key);
+        if (ranking != null) {
+            ranking.remove(student);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the students in a class. The view is not a
+     * copy, so it reflects students added later.
+     *
+     * @param className The class name, in any case.
+     * @return The students in the class, or an empty list if there are none.
+     */
+    public List<Student> get(String className) {
+        Members members = studentsByClass.get(normalize(className));
+        return members != null ? members : Collections.emptyList();
+    }
+
+    /**
+     * @param className The class name, in any case.
+     * @return The number of students in the class.
+     */
+    public int size(String className) {
+        Members members = studentsByClass.get(normalize(className));
+        return members != null ? members.size() : 0;
+    }
+
+    /**
+     * @param className The class name, in any case.
+     * @return The live ranking for the class; empty if the class has no students.
+     */
+    public ClassRanking ranking(String className) {
+        ClassRanking ranking = rankings.get(normalize(className));
+        return ranking != null ? ranking : new ClassRanking();
+    }
+
+    /**
+     * @return The live ranking of every class that has students.
+     */
+    public Collection<ClassRanking> rankings() {
+        return Collections.unmodifiableCollection(rankings.values());
+    }
+
+    public void clear() {
+        studentsByClass.clear();
+        rankings.clear();
+    }
+
+    private static String normalize(String className) {
+        return className == null ? "" : className.toLowerCase(Locale.ROOT);
+    }
+}
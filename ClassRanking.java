@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Live ranking of the students in one class, in report order: total marks
+ * descending, then Maths+Science descending, then student ID ascending.
+ *
+ * Backed by a treap whose nodes track their subtree sizes, so rank lookup,
+ * insert, update and remove take O(log n) expected time, and top-K or page
+ * queries take O(log n + k). Each node keeps a copy of the sort key, which
+ * lets a student be repositioned after its totals have already changed.
+ * All operations are synchronized on the ranking, so each class has its
+ * own lock.
+ */
+public class ClassRanking {
+    /** Report order for plain Student objects, matching the ranking. */
+    public static final Comparator<Student> REPORT_ORDER = (a, b) -> compareKeys(
+            a.getTotalMarks(), a.getMathsAndScienceTotal(), a.getStudentId(),
+            b.getTotalMarks(), b.getMathsAndScienceTotal(), b.getStudentId());
+
+    private static final class Node {
+        final Student student;
+        final double total;
+        final double tieBreak;
+        final String id;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(Student student) {
+            this.student = student;
+            this.total = student.getTotalMarks();
+            this.tieBreak = student.getMathsAndScienceTotal();
+            this.id = student.getStudentId();
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private Node root;
+    private final Map<Student, Node> nodes = new HashMap<>();
+
+    /**
+     * Adds a student, or repositions it if it is already ranked.
+     */
+    public synchronized void add(Student student) {
+        remove(student);
+        Node node = new Node(student);
+        nodes.put(student, node);
+        Node[] parts = split(root, node);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Repositions a student whose totals have changed.
+     */
+    public synchronized void update(Student student) {
+        add(student);
+    }
+
+    public synchronized void remove(Student student) {
+        Node node = nodes.remove(student);
+        if (node != null) {
+            root = remove(root, node);
+        }
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * @return The student's 1-based rank, or -1 if it is not in this ranking.
+     */
+    public synchronized int rankOf(Student student) {
+        Node target = nodes.get(student);
+        if (target == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(target, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left);
+                if (cmp == 0) {
+                    return rank + 1;
+                }
+                rank++;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param k The number of students wanted.
+     * @return The k best-ranked students, best first.
+     */
+    public synchronized List<Student> top(int k) {
+        return page(0, k);
+    }
+
+    /**
+     * @param offset Number of top-ranked students to skip.
+     * @param limit  Maximum number of students to return.
+     * @return Students ranked offset+1 to offset+limit, best first.
+     */
+    public synchronized List<Student> page(int offset, int limit) {
+        int from = Math.max(0, offset);
+        int to = (int) Math.min((long) from + Math.max(0, limit), size());
+        List<Student> out = new ArrayList<>(Math.max(0, to - from));
+        collect(root, 0, from, to, out);
+        return out;
+    }
+
+    /**
+     * Keyset paging: the students ranked after a given position. Unlike an
+     * offset, the position stays put when students are added or move
+     * elsewhere in the ranking, so paging through a changing class never
+     * skips a student that did not move.
+     *
+     * @param cursor The last student of the previous page, as it was read
+     *               (e.g. a snapshot), or null to start from the top.
+     * @param limit  Maximum number of students to return.
+     * @return Up to limit students ranked after the cursor's keys, best first.
+     */
+    public synchronized List<Student> after(Student cursor, int limit) {
+        if (cursor == null) {
+            return page(0, limit);
+        }
+        List<Student> out = new ArrayList<>(Math.min(Math.max(0, limit), size()));
+        collectAfter(root, cursor.getTotalMarks(), cursor.getMathsAndScienceTotal(), cursor.getStudentId(),
+                limit, out);
+        return out;
+    }
+
+    private static void collectAfter(Node node, double total, double tieBreak, String id, int limit,
+            List<Student> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        if (compareKeys(node.total, node.tieBreak, node.id, total, tieBreak, id) <= 0) {
+            collectAfter(node.right, total, tieBreak, id, limit, out);
+            return;
+        }
+        collectAfter(node.left, total, tieBreak, id, limit, out);
+        if (out.size() < limit) {
+            out.add(node.student);
+        }
+        collectAfter(node.right, total, tieBreak, id, limit, out);
+    }
+
+    /**
+     * Walks the ranking best first and stops as soon as enough students
+     * match, so a selective filter near the top costs little more than top(k).
+     *
+     * @param filter Which students to keep; called under the ranking's lock.
+     * @param limit  Most students to return.
+     * @return The best-ranked matching students, best first.
+     */
+    public synchronized List<Student> first(Predicate<? super Student> filter, int limit) {
+        List<Student> out = new ArrayList<>(Math.min(Math.max(0, limit), 1024));
+        if (limit > 0) {
+            collectMatching(root, filter, limit, out);
+        }
+        return out;
+    }
+
+    /**
+     * @return false once the limit is reached.
+     */
+    private static boolean collectMatching(Node node, Predicate<? super Student> filter, int limit,
+            List<Student> out) {
+        if (node == null) {
+            return true;
+        }
+        if (!collectMatching(node.left, filter, limit, out)) {
+            return false;
+        }
+        if (filter.test(node.student)) {
+            out.add(node.student);
+            if (out.size() >= limit) {
+                return false;
+            }
+        }
+        return collectMatching(node.right, filter, limit, out);
+    }
+
+    private static void collect(Node node, int base, int from, int to, List<Student> out) {
+        if (node == null || base >= to || base + node.size <= from) {
+            return;
+        }
+        collect(node.left, base, from, to, out);
+        int index = base + size(node.left);
+        if (index >= from && index < to) {
+            out.add(node.student);
+        }
+        collect(node.right, index + 1, from, to, out);
+    }
+
+    /**
+     * Orders nodes best first.
+     */
+    private static int compare(Node a, Node b) {
+        return compareKeys(a.total, a.tieBreak, a.id, b.total, b.tieBreak, b.id);
+    }
+
+    private static int compareKeys(double totalA, double tieBreakA, String idA,
+            double totalB, double tieBreakB, String idB) {
+        int cmp = Double.compare(totalB, totalA);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Double.compare(tieBreakB, tieBreakA);
+        if (cmp != 0) {
+            return cmp;
+        }
+        // "S9" before "S10": shorter IDs have smaller numbers.
+        cmp = Integer.compare(idA.length(), idB.length());
+        return cmp != 0 ? cmp : idA.compareTo(idB);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    /**
+     * Splits a tree into nodes ranked before the key and nodes ranked at or after it.
+     */
+    private static Node[] split(Node node, Node key) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        if (compare(node, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+
+    private static Node remove(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+        if (node == target) {
+            return merge(node.left, node.right);
+        }
+        if (compare(target, node) < 0) {
+            node.left = remove(node.left, target);
+        } else {
+            node.right = remove(node.right, target);
+        }
+        return update(node);
+    }
+}
@@ -0,0 +1,268 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Summary figures for a group of students, gathered in a single pass.
+ * Holds per-subject highest/lowest scorers, averages and status counts,
+ * plus the overall Pass/Fail/Malpractice counts used by the report footer.
+ *
+ * Instances are mergeable: statistics for two consecutive slices of a list
+ * merge into the statistics of the whole list, with ties resolved in favour
+ * of the earlier student just like a sequential scan. Large lists are split
+ * across the common fork-join pool this way.
+ */
+public class ClassStatistics {
+    /** Lists at least this long are processed in parallel by compute(List). */
+    public static final int PARALLEL_THRESHOLD = 8192;
+    /** Scores at or above this count as a subject pass. */
+    public static final double SUBJECT_PASS_MARK = 25;
+
+    /**
+     * Figures for one subject. Min and max only consider "Graded" scores.
+     */
+    public static class SubjectStats {
+        private int gradedCount;
+        private double sum;
+        private double highest;
+        private Student highestScorer;
+        private double lowest;
+        private Student lowestScorer;
+        private int passed;
+        private int failed;
+        private int absent;
+        private int malpractice;
+
+        void accept(Student student, Grade grade) {
+            switch (grade.getStatus()) {
+                case GRADED:
+                    double score = grade.getScore();
+                    if (highestScorer == null || score > highest) {
+                        highest = score;
+                        highestScorer = student;
+                    }
+                    if (lowestScorer == null || score < lowest) {
+                        lowest = score;
+                        lowestScorer = student;
+                    }
+                    gradedCount++;
+                    sum += score;
+                    if (score >= SUBJECT_PASS_MARK) {
+                        passed++;
+                    } else {
+                        failed++;
+                    }
+                    break;
+                case ABSENT:
+                    absent++;
+                    break;
+                case MALPRACTICE:
+                    malpractice++;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void merge(SubjectStats later) {
+            if (later.highestScorer != null && (highestScorer == null || later.highest > highest)) {
+                highest = later.highest;
+                highestScorer = later.highestScorer;
+            }
+            if (later.lowestScorer != null && (lowestScorer == null || later.lowest < lowest)) {
+                lowest = later.lowest;
+                lowestScorer = later.lowestScorer;
+            }
+            gradedCount += later.gradedCount;
+            sum += later.sum;
+            passed += later.passed;
+            failed += later.failed;
+            absent += later.absent;
+            malpractice += later.malpractice;
+        }
+
+        // Getters
+        public int getGradedCount() {
+            return gradedCount;
+        }
+
+        /**
+         * @return The mean of graded scores, or 0 if nobody was graded.
+         */
+        public double getAverage() {
+            return gradedCount > 0 ? sum / gradedCount : 0.0;
+        }
+
+        public double getHighest() {
+            return highest;
+        }
+
+        /**
+         * @return The first student with the highest graded score, or null if nobody was graded.
+         */
+        public Student getHighestScorer() {
+            return highestScorer;
+        }
+
+        public double getLowest() {
+            return lowest;
+        }
+
+        /**
+         * @return The first student with the lowest graded score, or null if nobody was graded.
+         */
+        public Student getLowestScorer() {
+            return lowestScorer;
+        }
+
+        public int getPassed() {
+            return passed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getAbsent() {
+            return absent;
+        }
+
+        public int getMalpractice() {
+            return malpractice;
+        }
+    }
+
+    private final SubjectStats[] subjects = new SubjectStats[App.SUBJECTS.length];
+    private int studentCount;
+    private int passedCount;
+    private int failedCount;
+    private int malpracticeCount;
+
+    public ClassStatistics() {
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = new SubjectStats();
+        }
+    }
+
+    /**
+     * Computes statistics for the given students, in parallel for large lists.
+     *
+     * @param students The students, in report order.
+     */
+    public static ClassStatistics compute(List<Student> students) {
+        return compute(students, students.size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param students The students, in report order.
+     * @param parallel Whether to split the work across the common fork-join pool.
+     */
+    public static ClassStatistics compute(List<Student> students, boolean parallel) {
+        if (!parallel) {
+            return new ClassStatistics().acceptAll(students, 0, students.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new ComputeTask(students, 0, students.size()));
+    }
+
+    private ClassStatistics acceptAll(List<Student> students, int from, int to) {
+        for (int i = from; i < to; i++) {
+            accept(students.get(i));
+        }
+        return this;
+    }
+
+    /**
+     * Adds one student to the statistics.
+     */
+    public void accept(Student student) {
+        Map<String, Grade> grades = student.getSubjectGrades();
+        for (int i = 0; i < subjects.length; i++) {
+            Grade grade = grades.get(App.SUBJECTS[i]);
+            if (grade != null) {
+                subjects[i].accept(student, grade);
+            }
+        }
+        studentCount++;
+        switch (student.getRemark()) {
+            case "Pass":
+                passedCount++;
+                break;
+            case "Fail":
+                failedCount++;
+                break;
+            case "Malpractice":
+                malpracticeCount++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Folds in statistics for students that come after this instance's students.
+     *
+     * @param later Statistics for the following students.
+     * @return This instance, now covering both groups.
+     */
+    public ClassStatistics merge(ClassStatistics later) {
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i].merge(later.subjects[i]);
+        }
+        studentCount += later.studentCount;
+        passedCount += later.passedCount;
+        failedCount += later.failedCount;
+        malpracticeCount += later.malpracticeCount;
+        return this;
+    }
+
+    /**
+     * @param ordinal The subject's position in App.SUBJECTS.
+     */
+    public SubjectStats getSubject(int ordinal) {
+        return subjects[ordinal];
+    }
+
+    // Getters
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    public int getPassedCount() {
+        return passedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getMalpracticeCount() {
+        return malpracticeCount;
+    }
+
+    private static final class ComputeTask extends RecursiveTask<ClassStatistics> {
+        private static final long serialVersionUID = 1L;
+        private static final int SLICE = 4096;
+        private final List<Student> students;
+        private final int from;
+        private final int to;
+
+        ComputeTask(List<Student> students, int from, int to) {
+            this.students = students;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ClassStatistics compute() {
+            if (to - from <= SLICE) {
+                return new ClassStatistics().acceptAll(students, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ComputeTask left = new ComputeTask(students, from, mid);
+            left.fork();
+            ClassStatistics right = new ComputeTask(students, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
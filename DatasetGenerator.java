@@ -0,0 +1,269 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes a synthetic data file for benchmarks, load and soak tests. The
+ * same options and seed always produce the same file, so results can be
+ * reproduced on another machine.
+ *
+ * Students are spread evenly over the classes. Each student has an
+ * ability that lifts or lowers all of their subjects together, each class
+ * and subject has its own average, and a few grades are absent, caught in
+ * malpractice or not yet graded.
+ *
+ * Usage: java -cp .:gson-2.10.1.jar DatasetGenerator students file [seed]
+ *        [--classes n] [--absent pct] [--malpractice pct] [--not-graded pct]
+ * A file name ending in ".bin" is written as a BinarySnapshot, and one
+ * ending in ".shards" as a ShardedStore directory.
+ */
+public class DatasetGenerator {
+    public static final long DEFAULT_SEED = 42;
+    public static final String[] CLASSES = { "First Year", "Second Year", "Third Year", "Fourth Year" };
+
+    private static final String[] FIRST_NAMES = { "Aarav", "Anil", "Ashok", "Divya", "Farah", "Kiran", "Lakshmi",
+            "Meera", "Naveen", "Prem", "Priya", "Ravi", "Sana", "Subbu", "Upendra", "Vijay" };
+    private static final String[] LAST_NAMES = { "Iyer", "Kaiti", "Khan", "Kumar", "Menon", "Nair", "Rao", "Reddy",
+            "Shah", "Singh", "Tadaka", "Varma" };
+
+    /**
+     * Shape of a generated dataset. Rates are fractions of all grades.
+     */
+    public static final class Profile {
+        private int classes = CLASSES.length;
+        private double absentRate = 0.03;
+        private double malpracticeRate = 0.01;
+        private double notGradedRate = 0.05;
+
+        public Profile classes(int classes) {
+            if (classes < 1) {
+                throw new IllegalArgumentException("At least one class is needed.");
+            }
+            this.classes = classes;
+            return this;
+        }
+
+        public Profile absentRate(double rate) {
+            this.absentRate = rate;
+            return check();
+        }
+
+        public Profile malpracticeRate(double rate) {
+            this.malpracticeRate = rate;
+            return check();
+        }
+
+        public Profile notGradedRate(double rate) {
+            this.notGradedRate = rate;
+            return check();
+        }
+
+        private Profile check() {
+            if (absentRate < 0 || malpracticeRate < 0 || notGradedRate < 0
+                    || absentRate + malpracticeRate + notGradedRate > 1) {
+                throw new IllegalArgumentException("Status rates must be at least 0 and add up to at most 100%.");
+            }
+            return this;
+        }
+
+        /**
+         * @return CLASSES for the first four classes, then "Class 5", "Class 6" and so on.
+         */
+        public String className(int index) {
+            return index < CLASSES.length ? CLASSES[index] : "Class " + (index + 1);
+        }
+
+        public Set<String> classNames() {
+            Set<String> names = new TreeSet<>();
+            for (int i = 0; i < classes; i++) {
+                names.add(className(i));
+            }
+            return names;
+        }
+
+        // Getters
+        public int getClasses() {
+            return classes;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String usage = "Usage: DatasetGenerator students file [seed] [--classes n] [--absent pct] "
+                + "[--malpractice pct] [--not-graded pct]";
+        List<String> positional = new ArrayList<>();
+        Profile profile = new Profile();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--classes":
+                        profile.classes(Integer.parseInt(args[++i]));
+                        break;
+                    case "--absent":
+                        profile.absentRate(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    case "--malpractice":
+                        profile.malpracticeRate(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    case "--not-graded":
+                        profile.notGradedRate(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    default:
+                        positional.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            positional.clear();
+        }
+        if (positional.size() < 2) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+        int count = Integer.parseInt(positional.get(0));
+        Path file = Paths.get(positional.get(1));
+        long seed = positional.size() > 2 ? Long.parseLong(positional.get(2)) : DEFAULT_SEED;
+        long start = System.nanoTime();
+        generate(file, count, seed, profile);
+        System.out.printf("Wrote %,d students in %d classes to %s in %.1f ms%n", count, profile.getClasses(), file,
+                (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /**
+     * Writes a data file with IDs S1 to S{count} in the four default classes.
+     *
+     * @see #generate(Path, int, long, Profile)
+     */
+    public static void generate(Path file, int count, long seed) throws IOException {
+        generate(file, count, seed, new Profile());
+    }
+
+    /**
+     * Writes a data file with IDs S1 to S{count}.
+     *
+     * @param file    Destination; JSON unless the name ends in ".bin" or ".shards".
+     * @param count   Number of students.
+     * @param seed    Random seed.
+     * @param profile Classes and status rates.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void generate(Path file, int count, long seed, Profile profile) throws IOException {
+        Random random = new Random(seed);
+        Generator generator = new Generator(profile, random);
+        if (BinarySnapshot.usesBinaryFormat(file)) {
+            Map<String, Student> students = new HashMap<>();
+            for (int i = 1; i <= count; i++) {
+                Student student = generator.student(i);
+                students.put(student.getStudentId(), student);
+            }
+            BinarySnapshot.write(file, students, profile.classNames());
+            return;
+        }
+        if (ShardedStore.usesShardedFormat(file)) {
+            Map<String, List<Student>> shards = new HashMap<>();
+            for (int i = 1; i <= count; i++) {
+                Student student = generator.student(i);
+                shards.computeIfAbsent(ShardedStore.shardKey(student.getStudentClass()), k -> new ArrayList<>())
+                        .add(student);
+            }
+            Gson gson = new GsonBuilder().registerTypeAdapter(Student.class, new StudentTypeAdapter(null)).create();
+            new ShardedStore(file, gson).write(shards.keySet(), shards::get, profile.classNames(), count + 1);
+            return;
+        }
+
+        // Streamed one student at a time, so the file size is not limited by the heap.
+        StudentTypeAdapter adapter = new StudentTypeAdapter(null);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                JsonWriter out = new JsonWriter(writer)) {
+            out.beginObject();
+            out.name("students").beginObject();
+            for (int i = 1; i <= count; i++) {
+                Student student = generator.student(i);
+                out.name(student.getStudentId());
+                adapter.write(out, student);
+            }
+            out.endObject();
+            out.name("classNames").beginArray();
+            for (String className : profile.classNames()) {
+                out.value(className);
+            }
+            out.endArray();
+            out.endObject();
+        }
+    }
+
+    /**
+     * Draws students for one profile. Class and subject averages are drawn
+     * first, so they are the same for every student of a dataset.
+     */
+    static final class Generator {
+        // Spread of a student's ability and of one exam's luck; together about 18 marks.
+        private static final double ABILITY_SPREAD = 14;
+        private static final double EXAM_SPREAD = 11;
+
+        private final Profile profile;
+        private final Random random;
+        private final double[] classMeans;
+        private final double[] subjectOffsets;
+
+        Generator(Profile profile, Random random) {
+            this.profile = profile;
+            this.random = random;
+            this.classMeans = new double[profile.getClasses()];
+            for (int i = 0; i < classMeans.length; i++) {
+                classMeans[i] = 65 + random.nextGaussian() * 4;
+            }
+            this.subjectOffsets = new double[App.SUBJECTS.length];
+            for (int i = 0; i < subjectOffsets.length; i++) {
+                subjectOffsets[i] = random.nextGaussian() * 5;
+            }
+        }
+
+        /**
+         * Builds the student with the given number. Grades are set directly,
+         * without a listener.
+         */
+        Student student(int number) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            int classIndex = (number - 1) % classMeans.length;
+            Student student = new Student("S" + number, name, profile.className(classIndex));
+            double ability = random.nextGaussian() * ABILITY_SPREAD;
+            for (int i = 0; i < App.SUBJECTS.length; i++) {
+                student.addSubjectGrade(App.SUBJECTS[i],
+                        grade(classMeans[classIndex] + subjectOffsets[i] + ability));
+            }
+            return student;
+        }
+
+        private Grade grade(double expected) {
+            double roll = random.nextDouble();
+            if (roll < profile.absentRate) {
+                return Grade.ABSENT;
+            }
+            roll -= profile.absentRate;
+            if (roll < profile.malpracticeRate) {
+                return Grade.MALPRACTICE;
+            }
+            roll -= profile.malpracticeRate;
+            if (roll < profile.notGradedRate) {
+                return Grade.NOT_GRADED;
+            }
+            double score = Math.round(Math.min(Grade.MAX_SCORE, Math.max(Grade.MIN_SCORE,
+                    expected + random.nextGaussian() * EXAM_SPREAD)));
+            return Grade.graded(score);
+        }
+    }
+}
@@ -2,35 +2,251 @@
  * A data model representing a single grade.
  * It holds not just the score, but the status of the grade
  * (e.g., Graded, Absent, Malpractice).
+ *
+ * Grades are immutable and made with Grade.of, which hands out shared
+ * instances for "Not Graded", Absent, Malpractice and every whole-number
+ * score, so most students hold the same few hundred Grade objects.
  */
-public class Grade {
-    private double score;
-    private String status; // "Graded", "Absent", "Malpractice", "Not Graded"
+public final class Grade {
+    public static final double MIN_SCORE = 0;
+    public static final double MAX_SCORE = 100;
 
-    public Grade(double score, String status) {
+    /**
+     * The status of a grade. The code is what GradeStore keeps in its status
+     * columns; the label is what students.json and the journal hold.
+     */
+    public enum Status {
+        NOT_GRADED("Not Graded"),
+        GRADED("Graded"),
+        ABSENT("Absent"),
+        MALPRACTICE("Malpractice");
+
+        private static final Status[] BY_CODE = values();
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public byte getCode() {
+            return (byte) ordinal();
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @throws ArrayIndexOutOfBoundsException If the code is not one returned by getCode().
+         */
+        public static Status fromCode(byte code) {
+            return BY_CODE[code];
+        }
+
+        /**
+         * @param label A label such as "Absent", matched case-insensitively.
+         * @return The status, or null if the label is not one.
+         */
+        public static Status find(String label) {
+            if (label == null) {
+                return null;
+            }
+            switch (label) { // Exact labels, as written by this application, need no loop.
+                case "Not Graded":
+                    return NOT_GRADED;
+                case "Graded":
+                    return GRADED;
+                case "Absent":
+                    return ABSENT;
+                case "Malpractice":
+                    return MALPRACTICE;
+                default:
+                    break;
+            }
+            for (Status status : BY_CODE) {
+                if (status.label.equalsIgnoreCase(label)) {
+                    return status;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @throws IllegalArgumentException If the label is not a status.
+         */
+        public static Status fromLabel(String label) {
+            Status status = find(label);
+            if (status == null) {
+                throw new IllegalArgumentException("Unknown status: " + label);
+            }
+            return status;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** A subject with no grade yet; also what every new student starts with. */
+    public static final Grade NOT_GRADED = new Grade(-1, Status.NOT_GRADED);
+    public static final Grade ABSENT = new Grade(0, Status.ABSENT);
+    public static final Grade MALPRACTICE = new Grade(0, Status.MALPRACTICE);
+    private static final Grade[] WHOLE_SCORES = new Grade[(int) MAX_SCORE + 1];
+
+    static {
+        for (int i = 0; i < WHOLE_SCORES.length; i++) {
+            WHOLE_SCORES[i] = new Grade(i, Status.GRADED);
+        }
+    }
+
+    private final double score;
+    private final Status status;
+
+    private Grade(double score, Status status) {
         this.score = score;
         this.status = status;
     }
 
+    /**
+     * Returns a grade with the given score and status, shared with every
+     * other caller when it is one of the cached grades.
+     *
+     * @param score  The score; -1 for "Not Graded" and 0 for Absent or Malpractice by convention.
+     * @param status The status.
+     * @return The grade.
+     */
+    public static Grade of(double score, Status status) {
+        switch (status) {
+            case GRADED:
+                int whole = (int) score;
+                if (whole >= MIN_SCORE && whole <= MAX_SCORE && same(score, WHOLE_SCORES[whole])) {
+                    return WHOLE_SCORES[whole];
+                }
+                break;
+            case NOT_GRADED:
+                if (same(score, NOT_GRADED)) {
+                    return NOT_GRADED;
+                }
+                break;
+            case ABSENT:
+                if (same(score, ABSENT)) {
+                    return ABSENT;
+                }
+                break;
+            default:
+                if (same(score, MALPRACTICE)) {
+                    return MALPRACTICE;
+                }
+                break;
+        }
+        return new Grade(score, status);
+    }
+
+    /**
+     * @return A graded score.
+     */
+    public static Grade graded(double score) {
+        return of(score, Status.GRADED);
+    }
+
+    // Bitwise, so -0.0 and NaN are never mistaken for a cached score.
+    private static boolean same(double score, Grade cached) {
+        return Double.doubleToRawLongBits(score) == Double.doubleToRawLongBits(cached.score);
+    }
+
+    /**
+     * Checks whether a score is in the accepted 0-100 range.
+     */
+    public static boolean isValidScore(double score) {
+        return score >= MIN_SCORE && score <= MAX_SCORE;
+    }
+
+    /**
+     * Builds a grade from an entered score and optional status, applying the
+     * same rules as interactive entry: scores must be 0-100, and only a score
+     * of 0 may be recorded as Absent or Malpractice.
+     *
+     * @param score  The entered score.
+     * @param status "Graded", "Absent", "Malpractice", or null/empty for "Graded".
+     * @return The grade.
+     * @throws IllegalArgumentException If the score or status is not allowed.
+     */
+    public static Grade entered(double score, String status) {
+        if (!isValidScore(score)) {
+            throw new IllegalArgumentException("Invalid grade. Must be between 0 and 100.");
+        }
+        if (status == null || status.isEmpty() || status.equalsIgnoreCase("Graded")) {
+            return graded(score);
+        }
+        if (status.equalsIgnoreCase("Absent") || status.equalsIgnoreCase("Malpractice")) {
+            if (score != 0) {
+                throw new IllegalArgumentException(status + " requires a score of 0.");
+            }
+            return status.equalsIgnoreCase("Absent") ? ABSENT : MALPRACTICE;
+        }
+        throw new IllegalArgumentException("Unknown status: " + status);
+    }
+
     // Getters
     public double getScore() {
         return score;
     }
 
-    public String getStatus() {
+    public Status getStatus() {
         return status;
     }
 
+    public boolean isGraded() {
+        return status == Status.GRADED;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Grade)) {
+            return false;
+        }
+        Grade other = (Grade) o;
+        return status == other.status && Double.compare(score, other.score) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * status.ordinal() + Double.hashCode(score);
+    }
+
     @Override
     public String toString() {
         switch (status) {
-            case "Absent":
-            case "Malpractice":
-                return status;
-            case "Not Graded":
+            case ABSENT:
+            case MALPRACTICE:
+                return status.getLabel();
+            case NOT_GRADED:
                 return "N/A";
             default:
                 return String.valueOf(score);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Appends the same text as toString() without creating a String.
+     *
+     * @param sb The builder to append to.
+     * @return The builder.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        switch (status) {
+            case ABSENT:
+            case MALPRACTICE:
+                return sb.append(status.getLabel());
+            case NOT_GRADED:
+                return sb.append("N/A");
+            default:
+                return sb.append(score);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-class, per-subject score distributions, kept current as grades
+ * change so percentiles never need a sort over the students.
+ *
+ * A grade change takes the old "Graded" score out of its class's
+ * distribution and puts the new one in. School-wide figures are the
+ * per-class distributions merged, which costs a few thousand additions
+ * regardless of how many students there are.
+ */
+public class GradeAnalytics {
+    private final Map<String, ScoreDistribution[]> byClass = new ConcurrentHashMap<>();
+
+    /**
+     * Counts every graded score of a newly loaded student.
+     *
+     * @param student The student to add.
+     */
+    public void add(Student student) {
+        ScoreDistribution[] subjects = distributions(student.getStudentClass());
+        Map<String, Grade> grades = student.getSubjectGrades();
+        for (int i = 0; i < subjects.length; i++) {
+            Grade grade = grades.get(App.SUBJECTS[i]);
+            if (isGraded(grade)) {
+                subjects[i].add(grade.getScore());
+            }
+        }
+    }
+
+    /**
+     * Applies one grade change.
+     *
+     * @param student  The student whose grade changed.
+     * @param subject  The subject; subjects outside App.SUBJECTS are ignored.
+     * @param oldGrade The replaced grade, or null.
+     * @param newGrade The new grade.
+     */
+    public void update(Student student, String subject, Grade oldGrade, Grade newGrade) {
+        int ordinal = ordinal(subject);
+        if (ordinal < 0) {
+            return;
+        }
+        ScoreDistribution distribution = distributions(student.getStudentClass())[ordinal];
+        if (isGraded(oldGrade)) {
+            distribution.remove(oldGrade.getScore());
+        }
+        if (isGraded(newGrade)) {
+            distribution.add(newGrade.getScore());
+        }
+    }
+
+    /**
+     * @param className The class name, in any case.
+     * @return A copy of the class's distributions, indexed like App.SUBJECTS.
+     */
+    public ScoreDistribution[] forClass(String className) {
+        ScoreDistribution[] merged = empty();
+        ScoreDistribution[] subjects = byClass.get(normalize(className));
+        if (subjects != null) {
+            mergeInto(merged, subjects);
+        }
+        return merged;
+    }
+
+    /**
+     * @return Every class's distributions merged, indexed like App.SUBJECTS.
+     */
+    public ScoreDistribution[] forSchool() {
+        ScoreDistribution[] merged = empty();
+        for (ScoreDistribution[] subjects : byClass.values()) {
+            mergeInto(merged, subjects);
+        }
+        return merged;
+    }
+
+    public void clear() {
+        byClass.clear();
+    }
+
+    private ScoreDistribution[] distributions(String className) {
+        return byClass.computeIfAbsent(normalize(className), k -> empty());
+    }
+
+    private static ScoreDistribution[] empty() {
+        ScoreDistribution[] subjects = new ScoreDistribution[App.SUBJECTS.length];
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = new ScoreDistribution();
+        }
+        return subjects;
+    }
+
+    private static void mergeInto(ScoreDistribution[] target, ScoreDistribution[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i].merge(source[i]);
+        }
+    }
+
+    private static boolean isGraded(Grade grade) {
+        return grade != null && grade.isGraded();
+    }
+
+    private static int ordinal(String subject) {
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            if (App.SUBJECTS[i].equals(subject)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(String className) {
+        return className == null ? "" : className.toLowerCase(Locale.ROOT);
+    }
+}
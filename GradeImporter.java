@@ -0,0 +1,269 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk grade import from a CSV file with the columns
+ * {@code studentId, subject, score, status}. A header row is optional and
+ * the status column may be left empty for an ordinary grade.
+ *
+ * The file is streamed in chunks of lines. Chunks are parsed and validated
+ * in parallel, with the same rules as interactive entry (Grade.entered), and
+ * then applied to the tracker in file order, one batch per chunk, so a later
+ * row for the same student and subject wins. Only a bounded number of
+ * chunks are in flight at once. Rejected rows are written to a report file.
+ */
+public class GradeImporter {
+    public static final int CHUNK_LINES = 8192;
+
+    /**
+     * Outcome of one import.
+     */
+    public static class Result {
+        private long rows;
+        private long applied;
+        private long rejected;
+        private long elapsedNanos;
+
+        // Getters
+        public long getRows() {
+            return rows;
+        }
+
+        public long getApplied() {
+            return applied;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+    }
+
+    private static final class Row {
+        final long line;
+        final String raw;
+        final String studentId;
+        final String subject;
+        final Grade grade;
+
+        Row(long line, String raw, String studentId, String subject, Grade grade) {
+            this.line = line;
+            this.raw = raw;
+            this.studentId = studentId;
+            this.subject = subject;
+            this.grade = grade;
+        }
+    }
+
+    private static final class ParsedChunk {
+        final List<Row> rows = new ArrayList<>();
+        final List<String> rejects = new ArrayList<>();
+    }
+
+    private final GradeTracker tracker;
+    private final int threads;
+
+    public GradeImporter(GradeTracker tracker) {
+        this(tracker, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param tracker The tracker to apply grades to.
+     * @param threads Number of parser threads.
+     */
+    public GradeImporter(GradeTracker tracker, int threads) {
+        this.tracker = tracker;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Imports every row of the CSV file and saves once at the end.
+     *
+     * @param csv          The file to import.
+     * @param rejectReport Where rejected rows are written, with their line number and reason.
+     * @return Row counts and timing.
+     * @throws IOException If the input cannot be read or the report cannot be written.
+     */
+    public Result importFile(Path csv, Path rejectReport) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+                BufferedWriter rejects = Files.newBufferedWriter(rejectReport, StandardCharsets.UTF_8)) {
+            rejects.write("line,reason,row");
+            rejects.newLine();
+
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long chunkStart = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(line)) {
+                    chunkStart = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    submit(parsers, inFlight, lines, chunkStart);
+                    chunkStart = lineNumber + 1;
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    if (inFlight.size() >= threads * 2) {
+                        apply(await(inFlight.removeFirst()), result, rejects);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(parsers, inFlight, lines, chunkStart);
+            }
+            while (!inFlight.isEmpty()) {
+                apply(await(inFlight.removeFirst()), result, rejects);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        tracker.saveStudents();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static boolean isHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith("studentid");
+    }
+
+    private static void submit(ExecutorService parsers, Deque<Future<ParsedChunk>> inFlight, List<String> lines,
+            long firstLine) {
+        inFlight.addLast(parsers.submit(() -> parse(lines, firstLine)));
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error parsing import file: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static ParsedChunk parse(List<String> lines, long firstLine) {
+        ParsedChunk chunk = new ParsedChunk();
+        for (int i = 0; i < lines.size(); i++) {
+            long lineNumber = firstLine + i;
+            String raw = lines.get(i);
+            if (raw.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = raw.split(",", -1);
+            if (fields.length < 3 || fields.length > 4) {
+                chunk.rejects.add(reject(lineNumber, "Expected studentId,subject,score,status", raw));
+                continue;
+            }
+            String studentId = unquote(fields[0]).toUpperCase(Locale.ROOT);
+            String subject = canonicalSubject(unquote(fields[1]));
+            String status = fields.length == 4 ? unquote(fields[3]) : "";
+            if (studentId.isEmpty()) {
+                chunk.rejects.add(reject(lineNumber, "Missing student ID", raw));
+                continue;
+            }
+            if (subject == null) {
+                chunk.rejects.add(reject(lineNumber, "Unknown subject", raw));
+                continue;
+            }
+            try {
+                double score = Double.parseDouble(unquote(fields[2]));
+                chunk.rows.add(new Row(lineNumber, raw, studentId, subject, Grade.entered(score, status)));
+            } catch (NumberFormatException e) {
+                chunk.rejects.add(reject(lineNumber, "Invalid score", raw));
+            } catch (IllegalArgumentException e) {
+                chunk.rejects.add(reject(lineNumber, e.getMessage(), raw));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Applies one chunk: the grades for each student are collected and set in
+     * a single atomic update.
+     */
+    private void apply(ParsedChunk chunk, Result result, BufferedWriter rejects) throws IOException {
+        result.rows += chunk.rows.size() + chunk.rejects.size();
+        for (String reject : chunk.rejects) {
+            rejects.write(reject);
+            rejects.newLine();
+        }
+        result.rejected += chunk.rejects.size();
+
+        Map<String, List<Row>> byStudent = new LinkedHashMap<>();
+        for (Row row : chunk.rows) {
+            byStudent.computeIfAbsent(row.studentId, k -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<String, List<Row>> entry : byStudent.entrySet()) {
+            Optional<Student> student = tracker.findStudentById(entry.getKey());
+            if (!student.isPresent()) {
+                for (Row row : entry.getValue()) {
+                    rejects.write(reject(row.line, "Student not found", row.raw));
+                    rejects.newLine();
+                }
+                result.rejected += entry.getValue().size();
+                continue;
+            }
+            Map<String, Grade> grades = new LinkedHashMap<>();
+            for (Row row : entry.getValue()) {
+                grades.put(row.subject, row.grade);
+            }
+            student.get().addSubjectGrades(grades);
+            result.applied += entry.getValue().size();
+        }
+    }
+
+    private static String canonicalSubject(String subject) {
+        for (String known : App.SUBJECTS) {
+            if (known.equalsIgnoreCase(subject)) {
+                return known;
+            }
+        }
+        return null;
+    }
+
+    private static String unquote(String field) {
+        String trimmed = field.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static String reject(long line, String reason, String raw) {
+        return line + "," + csvField(reason) + "," + csvField(raw);
+    }
+
+    private static String csvField(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Callback invoked whenever a student's grade for a subject changes.
+ * GradeTracker registers one on every student it manages so it can
+ * keep its journal and derived structures in step with the data.
+ * It is called while the student's lock is held, so it must not wait
+ * on other students.
+ */
+@FunctionalInterface
+public interface GradeListener {
+    /**
+     * @param student  The student whose grade changed.
+     * @param subject  The subject name.
+     * @param oldGrade The grade that was replaced, or null if there was none.
+     * @param newGrade The grade now stored for the subject.
+     */
+    void onGradeChanged(Student student, String subject, Grade oldGrade, Grade newGrade);
+}
@@ -0,0 +1,428 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP/JSON API over a GradeTracker, on the JDK's built-in server.
+ * It listens on the loopback interface only, since requests are not
+ * authenticated.
+ *
+ * <pre>
+ * GET  /students?class=&subject=&status=&failed=&minScore=&maxScore=&minTotal=&maxTotal=&remark=&sort=&limit=
+ *                                            students matching a StudentQuery, with its plan
+ * GET  /students/{id}                        one student
+ * POST /students                             {"name": ..., "studentClass": ...}
+ * POST /students/{id}/grades                 {"Maths": {"score": 90}, "Science": {"score": 0, "status": "Absent"}}
+ * GET  /classes                              class names and sizes
+ * GET  /classes/{name}/report[?offset=&limit=]  ranked rows and statistics
+ * </pre>
+ * Grades follow the same rules as the console (Grade.entered) and all the
+ * grades in one request are applied as one atomic change. Writes are
+ * durable at the journal's next group commit.
+ *
+ * Requests run on virtual threads when the runtime has them (Java 21+).
+ * Otherwise they run on a small fixed pool with a bounded queue. When the
+ * queue is full the accepting thread runs the request itself, which slows
+ * accepts down instead of letting the queue, and so the latency, grow
+ * without bound.
+ */
+public class GradeServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final GradeTracker tracker;
+    private final Gson gson;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param tracker The tracker to serve.
+     * @param port    Port to listen on, on the loopback interface; 0 picks a free port.
+     */
+    public GradeServer(GradeTracker tracker, int port) throws IOException {
+        this.tracker = tracker;
+        this.gson = tracker.getGson();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), QUEUE_CAPACITY);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/students", this::handleStudents);
+        server.createContext("/classes", this::handleClasses);
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for running ones and saves.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tracker.saveStudents();
+    }
+
+    private void handleStudents(HttpExchange exchange) throws IOException {
+        try {
+            String[] parts = pathParts(exchange, "/students");
+            String method = exchange.getRequestMethod();
+            if (parts.length == 0 && method.equals("POST")) {
+                createStudent(exchange);
+            } else if (parts.length == 0 && method.equals("GET")) {
+                queryStudents(exchange);
+            } else if (parts.length == 1 && method.equals("GET")) {
+                Optional<Student> student = tracker.findStudentById(parts[0]);
+                if (student.isPresent()) {
+                    send(exchange, 200, studentJson(student.get().snapshot()));
+                } else {
+                    sendError(exchange, 404, "Student with ID '" + parts[0] + "' not found.");
+                }
+            } else if (parts.length == 2 && parts[1].equals("grades") && method.equals("POST")) {
+                submitGrades(exchange, parts[0]);
+            } else {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            sendError(exchange, 400, "Invalid JSON body: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createStudent(HttpExchange exchange) throws IOException {
+        JsonObject body = readBody(exchange);
+        String name = stringField(body, "name");
+        String className = stringField(body, "studentClass");
+        if (name == null || name.trim().isEmpty()) {
+            sendError(exchange, 400, "Student name cannot be empty.");
+            return;
+        }
+        Optional<String> match = className == null ? Optional.empty()
+                : tracker.getClassNames().stream().filter(className::equalsIgnoreCase).findFirst();
+        if (!match.isPresent()) {
+            sendError(exchange, 400, "Class '" + className + "' does not exist.");
+            return;
+        }
+        Student student = tracker.addStudent(name, match.get());
+        send(exchange, 201, studentJson(student.snapshot()));
+    }
+
+    /**
+     * Builds a StudentQuery from the query string. "status" and "minScore"/"maxScore"
+     * apply to "subject", or to any subject when it is left out; "failed" takes a
+     * subject or "any"; "sort" is "report", "id" or a subject to rank by its score.
+     */
+    private void queryStudents(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = queryParameters(exchange);
+        StudentQuery query = new StudentQuery();
+        try {
+            String subject = parameters.get("subject");
+            if (parameters.containsKey("class")) {
+                query.inClass(parameters.get("class"));
+            }
+            if (parameters.containsKey("status")) {
+                if (subject != null) {
+                    query.withStatus(subject, parameters.get("status"));
+                } else {
+                    query.withStatusInAnySubject(parameters.get("status"));
+                }
+            }
+            if (parameters.containsKey("failed")) {
+                if (parameters.get("failed").equalsIgnoreCase("any")) {
+                    query.failedAnySubject();
+                } else {
+                    query.failed(parameters.get("failed"));
+                }
+            }
+            if (parameters.containsKey("minScore") || parameters.containsKey("maxScore")) {
+                if (subject == null) {
+                    sendError(exchange, 400, "minScore and maxScore need a subject.");
+                    return;
+                }
+                query.scoreBetween(subject, Double.parseDouble(parameters.getOrDefault("minScore", "0")),
+                        Double.parseDouble(parameters.getOrDefault("maxScore", "100")));
+            }
+            if (parameters.containsKey("minTotal") || parameters.containsKey("maxTotal")) {
+                query.totalBetween(Double.parseDouble(parameters.getOrDefault("minTotal", "-Infinity")),
+                        Double.parseDouble(parameters.getOrDefault("maxTotal", "Infinity")));
+            }
+            if (parameters.containsKey("remark")) {
+                query.remark(parameters.get("remark"));
+            }
+            String sort = parameters.get("sort");
+            if ("report".equalsIgnoreCase(sort)) {
+                query.orderBy(StudentQuery.Order.REPORT);
+            } else if ("id".equalsIgnoreCase(sort)) {
+                query.orderBy(StudentQuery.Order.STUDENT_ID);
+            } else if (sort != null) {
+                query.orderByScore(sort);
+            }
+            if (parameters.containsKey("limit")) {
+                query.limit(Integer.parseInt(parameters.get("limit")));
+            }
+            query.parallel(Boolean.parseBoolean(parameters.get("parallel")));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("plan", tracker.explain(query));
+        JsonArray students = new JsonArray();
+        for (Student student : tracker.query(query)) {
+            students.add(studentJson(student.snapshot()));
+        }
+        result.add("students", students);
+        send(exchange, 200, result);
+    }
+
+    private void submitGrades(HttpExchange exchange, String studentId) throws IOException {
+        Optional<Student> student = tracker.findStudentById(studentId);
+        if (!student.isPresent()) {
+            sendError(exchange, 404, "Student with ID '" + studentId + "' not found.");
+            return;
+        }
+        JsonObject body = readBody(exchange);
+        Map<String, Grade> grades = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : body.entrySet()) {
+            String subject = canonicalSubject(entry.getKey());
+            if (subject == null || !entry.getValue().isJsonObject()) {
+                sendError(exchange, 400, "Unknown subject or malformed grade: " + entry.getKey());
+                return;
+            }
+            JsonObject grade = entry.getValue().getAsJsonObject();
+            if (!grade.has("score") || !grade.get("score").isJsonPrimitive()) {
+                sendError(exchange, 400, "Missing score for " + subject);
+                return;
+            }
+            try {
+                grades.put(subject, Grade.entered(grade.get("score").getAsDouble(), stringField(grade, "status")));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid score for " + subject);
+                return;
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, subject + ": " + e.getMessage());
+                return;
+            }
+        }
+        if (grades.isEmpty()) {
+            sendError(exchange, 400, "No grades given.");
+            return;
+        }
+        student.get().addSubjectGrades(grades);
+        send(exchange, 200, studentJson(student.get().snapshot()));
+    }
+
+    private void handleClasses(HttpExchange exchange) throws IOException {
+        try {
+            String[] parts = pathParts(exchange, "/classes");
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Only GET is supported here.");
+            } else if (parts.length == 0) {
+                JsonArray classes = new JsonArray();
+                for (String className : tracker.getClassNames()) {
+                    JsonObject item = new JsonObject();
+                    item.addProperty("name", className);
+                    item.addProperty("students", tracker.getClassSize(className));
+                    classes.add(item);
+                }
+                send(exchange, 200, classes);
+            } else if (parts.length == 2 && parts[1].equals("report")) {
+                classReport(exchange, parts[0]);
+            } else {
+                sendError(exchange, 404, "No such endpoint: GET " + exchange.getRequestURI().getPath());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void classReport(HttpExchange exchange, String requested) throws IOException {
+        Optional<String> className = tracker.getClassNames().stream().filter(requested::equalsIgnoreCase).findFirst();
+        if (!className.isPresent()) {
+            sendError(exchange, 404, "Class '" + requested + "' does not exist.");
+            return;
+        }
+        Map<String, String> query = queryParameters(exchange);
+        int offset;
+        int limit;
+        try {
+            offset = Math.max(0, Integer.parseInt(query.getOrDefault("offset", "0")));
+            limit = Math.max(0, Integer.parseInt(query.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE))));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "offset and limit must be numbers.");
+            return;
+        }
+
+        // Only the requested page is copied; the statistics stream over the class a page at a time.
+        List<Student> rows = new ArrayList<>();
+        for (Student student : tracker.getRankingPage(className.get(), offset, limit)) {
+            rows.add(student.snapshot());
+        }
+        rows.sort(ClassRanking.REPORT_ORDER);
+        ClassStatistics stats = new ClassStatistics();
+        for (Student row : tracker.getClassReportRows(className.get())) {
+            stats.accept(row);
+        }
+        JsonObject report = new JsonObject();
+        report.addProperty("className", className.get());
+        JsonArray students = new JsonArray();
+        for (int i = 0; i < rows.size(); i++) {
+            JsonObject item = studentJson(rows.get(i));
+            item.addProperty("rank", offset + i + 1);
+            students.add(item);
+        }
+        report.add("students", students);
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("totalStudents", stats.getStudentCount());
+        summary.addProperty("passed", stats.getPassedCount());
+        summary.addProperty("failed", stats.getFailedCount());
+        summary.addProperty("malpractice", stats.getMalpracticeCount());
+        JsonObject subjects = new JsonObject();
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            JsonObject item = new JsonObject();
+            if (subject.getGradedCount() > 0) {
+                item.addProperty("average", subject.getAverage());
+                item.addProperty("highest", subject.getHighest());
+                item.addProperty("highestScorer", subject.getHighestScorer().getName());
+                item.addProperty("lowest", subject.getLowest());
+                item.addProperty("lowestScorer", subject.getLowestScorer().getName());
+            }
+            item.addProperty("passed", subject.getPassed());
+            item.addProperty("failed", subject.getFailed());
+            item.addProperty("absent", subject.getAbsent());
+            item.addProperty("malpractice", subject.getMalpractice());
+            subjects.add(App.SUBJECTS[i], item);
+        }
+        summary.add("subjects", subjects);
+        report.add("summary", summary);
+        send(exchange, 200, report);
+    }
+
+    /**
+     * The student as stored in students.json, plus its total and remark.
+     */
+    private JsonObject studentJson(Student student) {
+        JsonObject json = gson.toJsonTree(student, Student.class).getAsJsonObject();
+        json.addProperty("totalMarks", student.getTotalMarks());
+        json.addProperty("remark", student.getRemark());
+        return json;
+    }
+
+    private static String[] pathParts(HttpExchange exchange, String context) {
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        List<String> parts = new ArrayList<>();
+        for (String part : rest.split("/")) {
+            if (!part.isEmpty()) {
+                parts.add(URLDecoder.decode(part, StandardCharsets.UTF_8));
+            }
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private JsonObject readBody(HttpExchange exchange) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonObject body = gson.fromJson(reader, JsonObject.class);
+            if (body == null) {
+                throw new JsonParseException("empty body");
+            }
+            return body;
+        }
+    }
+
+    private static String stringField(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static String canonicalSubject(String subject) {
+        for (String known : App.SUBJECTS) {
+            if (known.equalsIgnoreCase(subject)) {
+                return known;
+            }
+        }
+        return null;
+    }
+
+    private void send(HttpExchange exchange, int status, JsonElement body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        send(exchange, status, error);
+    }
+}
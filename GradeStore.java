@@ -0,0 +1,201 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Columnar grade storage shared by many students.
+ * Scores live in primitive double[] pages and statuses in byte[] pages,
+ * indexed by (student slot * subject count + subject ordinal), where the
+ * subject ordinal is the position in App.SUBJECTS.
+ * A store-backed Student keeps only its slot number; its grades are
+ * exposed through a Map view and read back as Grade.of, so common grades
+ * come back as shared instances and reads rarely allocate.
+ *
+ * Pages are never moved once created, so a write racing with growth of
+ * the store is never lost. Each slot is guarded by its student's lock.
+ */
+public class GradeStore {
+    private static final int SUBJECT_COUNT = App.SUBJECTS.length;
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_STUDENTS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_STUDENTS - 1;
+
+    private volatile double[][] scorePages;
+    private volatile byte[][] statusPages;
+    private int slots;
+
+    public GradeStore() {
+        this(1024);
+    }
+
+    /**
+     * @param initialStudents Number of student slots to reserve up front.
+     */
+    public GradeStore(int initialStudents) {
+        int pages = Math.max(1, (initialStudents + PAGE_STUDENTS - 1) >> PAGE_SHIFT);
+        this.scorePages = new double[pages][];
+        this.statusPages = new byte[pages][];
+    }
+
+    /**
+     * Reserves a slot for a new student with every subject "Not Graded".
+     *
+     * @return The slot number to pass to the other methods.
+     */
+    public synchronized int allocate() {
+        int page = slots >> PAGE_SHIFT;
+        if (page >= scorePages.length || scorePages[page] == null) {
+            double[][] scoreDir = scorePages;
+            byte[][] statusDir = statusPages;
+            if (page >= scoreDir.length) {
+                scoreDir = Arrays.copyOf(scoreDir, Math.max(page + 1, scoreDir.length + (scoreDir.length >> 1)));
+                statusDir = Arrays.copyOf(statusDir, scoreDir.length);
+            }
+            double[] scores = new double[PAGE_STUDENTS * SUBJECT_COUNT];
+            Arrays.fill(scores, -1);
+            scoreDir[page] = scores;
+            statusDir[page] = new byte[PAGE_STUDENTS * SUBJECT_COUNT]; // all Grade.Status.NOT_GRADED, code 0
+            statusPages = statusDir;
+            scorePages = scoreDir;
+        }
+        return slots++;
+    }
+
+    /**
+     * @param subject The subject name.
+     * @return Its position in App.SUBJECTS, or -1 if it is not a known subject.
+     */
+    public static int subjectOrdinal(String subject) {
+        for (int i = 0; i < SUBJECT_COUNT; i++) {
+            if (App.SUBJECTS[i].equals(subject)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int offset(int slot, int subject) {
+        return (slot & PAGE_MASK) * SUBJECT_COUNT + subject;
+    }
+
+    public double getScore(int slot, int subject) {
+        return scorePages[slot >> PAGE_SHIFT][offset(slot, subject)];
+    }
+
+    /**
+     * @return The Grade.Status code of the grade.
+     */
+    public byte getStatusCode(int slot, int subject) {
+        return statusPages[slot >> PAGE_SHIFT][offset(slot, subject)];
+    }
+
+    public Grade get(int slot, int subject) {
+        int i = offset(slot, subject);
+        return Grade.of(scorePages[slot >> PAGE_SHIFT][i], Grade.Status.fromCode(statusPages[slot >> PAGE_SHIFT][i]));
+    }
+
+    public void set(int slot, int subject, Grade grade) {
+        int i = offset(slot, subject);
+        scorePages[slot >> PAGE_SHIFT][i] = grade.getScore();
+        statusPages[slot >> PAGE_SHIFT][i] = grade.getStatus().getCode();
+    }
+
+    /**
+     * Stores a grade by subject name.
+     *
+     * @return The grade previously stored for the subject.
+     * @throws IllegalArgumentException If the subject is not in App.SUBJECTS.
+     */
+    public Grade put(int slot, String subject, Grade grade) {
+        int ordinal = subjectOrdinal(subject);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Unknown subject: " + subject);
+        }
+        Grade previous = get(slot, ordinal);
+        set(slot, ordinal, grade);
+        return previous;
+    }
+
+    /**
+     * @return The number of student slots handed out.
+     */
+    public synchronized int size() {
+        return slots;
+    }
+
+    /**
+     * Returns a live Map view of one student's grades, keyed by subject name.
+     * Writes through put() go straight into the columns.
+     *
+     * @param slot The student's slot.
+     */
+    public Map<String, Grade> view(int slot) {
+        return new GradeView(this, slot);
+    }
+
+    private static final class GradeView extends AbstractMap<String, Grade> {
+        private final GradeStore store;
+        private final int slot;
+
+        GradeView(GradeStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public Grade get(Object key) {
+            int subject = key instanceof String ? subjectOrdinal((String) key) : -1;
+            return subject < 0 ? null : store.get(slot, subject);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && subjectOrdinal((String) key) >= 0;
+        }
+
+        @Override
+        public Grade put(String key, Grade value) {
+            return store.put(slot, key, value);
+        }
+
+        @Override
+        public int size() {
+            return SUBJECT_COUNT;
+        }
+
+        @Override
+        public Set<Entry<String, Grade>> entrySet() {
+            return new AbstractSet<Entry<String, Grade>>() {
+                @Override
+                public Iterator<Entry<String, Grade>> iterator() {
+                    return new Iterator<Entry<String, Grade>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < SUBJECT_COUNT;
+                        }
+
+                        @Override
+                        public Entry<String, Grade> next() {
+                            if (next >= SUBJECT_COUNT) {
+                                throw new NoSuchElementException();
+                            }
+                            int subject = next++;
+                            return new SimpleImmutableEntry<>(App.SUBJECTS[subject], store.get(slot, subject));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return SUBJECT_COUNT;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Footprint check for the columnar GradeStore.
+ * Builds the same number of fully graded students twice, once with a
+ * HashMap of Grade objects per student and once backed by a GradeStore,
+ * and prints the retained heap per student for each, both in total and
+ * for the grade storage alone.
+ *
+ * Run with enough heap for both passes, e.g.
+ * java -Xmx4g -cp .:gson-2.10.1.jar GradeStoreFootprint 1000000
+ *
+ * Status strings are copied per grade, as they are after a JSON load.
+ */
+public class GradeStoreFootprint {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long mapBytes = measure(count, false);
+        long columnarBytes = measure(count, true);
+        // The columns hold one double and one status byte per subject; the rest is the Student objects.
+        long columnBytes = (long) count * App.SUBJECTS.length * (Double.BYTES + 1);
+        long shellBytes = columnarBytes - columnBytes;
+        System.out.printf("Students:                %,d%n", count);
+        System.out.printf("Per student, total:      map %,d bytes, columnar %,d bytes (%.1fx)%n",
+                mapBytes / count, columnarBytes / count, (double) mapBytes / columnarBytes);
+        System.out.printf("Per student, grades only: map %,d bytes, columnar %,d bytes (%.1fx)%n",
+                (mapBytes - shellBytes) / count, columnBytes / count,
+                (double) (mapBytes - shellBytes) / columnBytes);
+    }
+
+    /**
+     * @return Heap retained by the grades of {@code count} students. Student
+     *         names and IDs are excluded by building them before the baseline.
+     */
+    private static long measure(int count, boolean columnar) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "S" + (i + 1);
+        }
+        Student[] students = new Student[count];
+        long before = usedHeap();
+        GradeStore store = columnar ? new GradeStore(count) : null;
+        for (int i = 0; i < count; i++) {
+            Student s = columnar
+                    ? new Student(ids[i], ids[i], "First Year", store)
+                    : new Student(ids[i], ids[i], "First Year");
+            for (String subject : App.SUBJECTS) {
+                s.addSubjectGrade(subject, Grade.graded((i * 31 + subject.length()) % 101));
+            }
+            students[i] = s;
+        }
+        long after = usedHeap();
+        if (students[count - 1] == null || ids[0] == null) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -1,36 +1,152 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Handles all business logic for managing students, classes, and grades.
+ * Changes are appended to a mutation journal next to the data file and
+ * periodically compacted into a full snapshot.
+ *
+ * The data file is students.json, a BinarySnapshot (a ".bin" file) or a
+ * ShardedStore (a ".shards" directory, the default). A binary snapshot is
+ * not decoded up front: findStudentById decodes one student on first
+ * access, and the first class-wide query decodes the rest. A sharded store
+ * is loaded in parallel, and compaction rewrites only the changed classes.
+ *
+ * The tracker is safe for many threads at once. Students and classes live
+ * in concurrent maps, each student guards its own grades, and reports are
+ * built from per-student snapshots so they never block grade entry.
  */
-public class GradeTracker {
-    private static final String DATA_FILE = "students.json";
-    private Map<String, Student> students;
-    private Set<String> classNames;
+public class GradeTracker implements AutoCloseable {
+    public static final String DATA_FILE = "students" + ShardedStore.EXTENSION;
+    /** System property that switches grade storage to the columnar GradeStore. */
+    public static final String COLUMNAR_GRADES_PROPERTY = "grades.columnar";
+    /** System property with the autosave quiet period in milliseconds; 0 turns autosave off. */
+    public static final String AUTOSAVE_PROPERTY = "grades.autosaveMillis";
+    /** Rows fetched at a time by getClassReportRows. */
+    public static final int REPORT_PAGE_SIZE = 1024;
+    private final Path dataFile;
+    private final StudentMap students;
+    private final Set<String> classNames;
+    private final ClassIndex classIndex;
+    private final NameIndex nameIndex;
+    private final StatusIndex statusIndex;
+    private final GradeAnalytics analytics;
+    private final TermHistory history;
+    private final GradeStore gradeStore;
     private AtomicInteger nextId;
     private Gson gson;
+    private final MutationJournal journal;
+    private final boolean binaryFormat;
+    // Non-null when the data file is a ".shards" directory.
+    private final ShardedStore shardedStore;
+    // Keys of shards changed since the last compaction.
+    private final Set<String> dirtyShards = ConcurrentHashMap.newKeySet();
+    // Students not yet decoded from a binary data file; null once all are loaded.
+    private volatile BinarySnapshot lazySnapshot;
+    // Set once startup has indexed the loaded students; later decodes index themselves.
+    private volatile boolean started;
+    private final AtomicInteger decodedCount = new AtomicInteger();
+    // Set when the data file exists but could not be loaded; compaction would overwrite it.
+    private volatile boolean loadFailed;
+    private final TrackerMetrics metrics;
+    // Shared by mutations that add records; exclusive while compaction rotates the journal.
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // Serializes compactions from the journal threshold, autosave and startup.
+    private final Object compactionLock = new Object();
+    private final AutosaveScheduler autosave;
 
     public GradeTracker() {
-        this.gson = new GsonBuilder().create();
-        this.students = new HashMap<>();
-        this.classNames = new HashSet<>();
+        this(DATA_FILE);
+    }
+
+    /**
+     * Creates a tracker backed by the given data file.
+     *
+     * @param dataFile Path of the JSON file, binary file or shard directory to load from and save to.
+     */
+    public GradeTracker(String dataFile) {
+        this(dataFile, Boolean.getBoolean(COLUMNAR_GRADES_PROPERTY) ? new GradeStore() : null);
+    }
+
+    /**
+     * Creates a tracker backed by the given data file.
+     *
+     * @param dataFile   Path of the JSON file, binary file or shard directory to load from and save to.
+     * @param gradeStore Columnar store for all grades, or null to keep a map per student.
+     */
+    public GradeTracker(String dataFile, GradeStore gradeStore) {
+        this.dataFile = Paths.get(dataFile);
+        this.gradeStore = gradeStore;
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Student.class, new StudentTypeAdapter(gradeStore))
+                .registerTypeAdapter(Grade.class, new GradeTypeAdapter())
+                .registerTypeAdapter(Grade.Status.class, GradeTypeAdapter.STATUS)
+                .create();
+        this.students = new StudentMap();
+        this.classNames = ConcurrentHashMap.newKeySet();
+        this.classIndex = new ClassIndex();
+        this.nameIndex = new NameIndex();
+        this.statusIndex = new StatusIndex();
+        this.analytics = new GradeAnalytics();
+        this.journal = new MutationJournal(journalPath(this.dataFile), gson);
+        this.history = new TermHistory(historyPath(this.dataFile));
+        this.metrics = TrackerMetrics.create();
+        this.shardedStore = ShardedStore.usesShardedFormat(this.dataFile) ? new ShardedStore(this.dataFile, gson) : null;
+        this.binaryFormat = shardedStore == null
+                && (BinarySnapshot.usesBinaryFormat(this.dataFile) || BinarySnapshot.isBinary(this.dataFile));
         loadData();
+        boolean unfinishedCompaction = replayJournal();
         if (classNames.isEmpty()) {
             initializeDefaultClasses();
         }
         this.nextId = new AtomicInteger(calculateNextId());
+        for (Student student : students.values()) {
+            attach(student);
+        }
+        started = true;
+        verifyDerivedState();
+        try {
+            journal.open();
+        } catch (IOException e) {
+            System.err.println("Error opening journal, changes will not be recorded: " + e.getMessage());
+        }
+        journal.setCompactor(this::compact);
+        long autosaveMillis = Long.getLong(AUTOSAVE_PROPERTY, AutosaveScheduler.DEFAULT_QUIET_MILLIS);
+        this.autosave = autosaveMillis > 0
+                ? new AutosaveScheduler(this::autosave, autosaveMillis, AutosaveScheduler.DEFAULT_MAX_DELAY_MILLIS)
+                : null;
+        metrics.registerGauges(this::getStudentCount, () -> classNames.size(), journal::getBytesAppended);
+        if (unfinishedCompaction) {
+            // Which shards the interrupted compaction covered is unknown, so rewrite them all.
+            for (Student student : students.values()) {
+                markDirty(student.getStudentClass());
+            }
+            compact();
+        }
+    }
+
+    private static Path journalPath(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".journal");
+    }
+
+    private static Path historyPath(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".history");
     }
 
     private void initializeDefaultClasses() {
@@ -41,79 +157,739 @@ public class GradeTracker {
     }
 
     public void addClass(String className) {
-        classNames.add(className);
+        checkpointLock.readLock().lock();
+        try {
+            if (classNames.add(className)) {
+                journal.append(MutationJournal.Record.addClass(className));
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        scheduleAutosave();
     }
 
+    /**
+     * @return A read-only view of the class names.
+     */
     public Set<String> getClassNames() {
-        return classNames;
+        return Collections.unmodifiableSet(classNames);
     }
 
     public Student addStudent(String name, String className) {
+        long start = metrics.start();
         String id = "S" + nextId.getAndIncrement();
-        Student student = new Student(id, name, className);
-        students.put(id, student);
+        Student student = newStudent(id, name, className);
+        student.setGradeListener(this::onGradeChanged);
+        classIndex.add(student);
+        nameIndex.add(student);
+        statusIndex.add(student);
+        checkpointLock.readLock().lock();
+        try {
+            markDirty(className);
+            // Journal before publishing, so no grade record can precede this student's record.
+            journal.append(MutationJournal.Record.addStudent(student));
+            students.put(id, student);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        scheduleAutosave();
+        metrics.record(TrackerMetrics.Operation.ADD_STUDENT, start);
+        return student;
+    }
+
+    private Student newStudent(String id, String name, String className) {
+        return gradeStore != null
+                ? new Student(id, name, className, gradeStore)
+                : new Student(id, name, className);
+    }
+
+    private Student attach(Student student) {
+        classIndex.add(student);
+        nameIndex.add(student);
+        statusIndex.add(student);
+        analytics.add(student);
+        student.setGradeListener(this::onGradeChanged);
         return student;
     }
 
+    private void onGradeChanged(Student student, String subject, Grade oldGrade, Grade newGrade) {
+        classIndex.update(student);
+        statusIndex.update(student, subject, oldGrade, newGrade);
+        analytics.update(student, subject, oldGrade, newGrade);
+        // Marked before the record is journaled, so the compaction that rotates it out sees the mark.
+        markDirty(student.getStudentClass());
+        journal.append(MutationJournal.Record.grade(student, subject, newGrade));
+        scheduleAutosave();
+    }
+
+    private void markDirty(String className) {
+        if (shardedStore != null) {
+            dirtyShards.add(ShardedStore.shardKey(className));
+        }
+    }
+
+    private void scheduleAutosave() {
+        if (autosave != null) {
+            autosave.changed();
+        }
+    }
+
     public Optional<Student> findStudentById(String studentId) {
-        return Optional.ofNullable(students.get(studentId.toUpperCase()));
+        long start = metrics.start();
+        Student student = lookup(studentId);
+        metrics.record(TrackerMetrics.Operation.FIND_STUDENT, start);
+        return Optional.ofNullable(student);
+    }
+
+    /**
+     * @param studentId The ID in any case; canonical IDs are found without allocating.
+     */
+    private Student lookup(String studentId) {
+        Student student = students.find(studentId);
+        BinarySnapshot source = lazySnapshot;
+        if (student != null || source == null) {
+            return student;
+        }
+        String canonicalId = studentId.toUpperCase();
+        int index = source.indexOf(canonicalId);
+        if (index < 0) {
+            return null;
+        }
+        return students.computeIfAbsent(canonicalId, id -> decode(source, index));
+    }
+
+    private Student decode(BinarySnapshot source, int index) {
+        Student student = source.read(index, gradeStore);
+        decodedCount.incrementAndGet();
+        return started ? attach(student) : student;
+    }
+
+    /**
+     * Decodes every student still left in a binary data file. Class-wide
+     * queries need all students indexed, so they call this first.
+     */
+    private void loadRemaining() {
+        BinarySnapshot source = lazySnapshot;
+        if (source == null) {
+            return;
+        }
+        synchronized (source) {
+            if (lazySnapshot == null) {
+                return;
+            }
+            for (int i = 0; i < source.size(); i++) {
+                int index = i;
+                students.computeIfAbsent(source.idAt(i), id -> decode(source, index));
+            }
+            lazySnapshot = null;
+        }
+    }
+
+    private boolean exists(String studentId) {
+        BinarySnapshot source = lazySnapshot;
+        return students.containsKey(studentId) || (source != null && source.indexOf(studentId) >= 0);
+    }
+
+    /**
+     * Finds students by name. Names starting with the query come first,
+     * then names close to it, so a typo still finds the student.
+     *
+     * @param query     The name or start of a name, in any case.
+     * @param className Only search this class (any case), or null for all classes.
+     * @param limit     Most students to return.
+     * @return The matching students, best match first.
+     */
+    public List<Student> findStudentsByName(String query, String className, int limit) {
+        loadRemaining();
+        long start = metrics.start();
+        List<Student> matches = nameIndex.search(query, className, limit);
+        metrics.record(TrackerMetrics.Operation.NAME_SEARCH, start);
+        return matches;
+    }
+
+    /**
+     * Returns per-subject score distributions, maintained as grades change.
+     *
+     * @param className The class name (any case), or null for the whole school.
+     * @return Distributions indexed like App.SUBJECTS; a copy the caller may keep.
+     */
+    public ScoreDistribution[] getScoreDistributions(String className) {
+        loadRemaining();
+        long start = metrics.start();
+        ScoreDistribution[] distributions = className != null ? analytics.forClass(className) : analytics.forSchool();
+        metrics.record(TrackerMetrics.Operation.ANALYTICS, start);
+        return distributions;
+    }
+
+    /**
+     * Answers a query from the cheapest index that applies; see QueryPlan.
+     * The students returned are the live objects, so take a snapshot()
+     * where several fields must agree.
+     *
+     * @param query The conditions, order and limit.
+     * @return The matching students in the query's order.
+     */
+    public List<Student> query(StudentQuery query) {
+        loadRemaining();
+        long start = metrics.start();
+        List<Student> matches = plan(query).execute().collect(Collectors.toList());
+        metrics.record(TrackerMetrics.Operation.QUERY, start);
+        return matches;
+    }
+
+    /**
+     * Like query, but lazy: students are checked only as the stream is consumed,
+     * so an unordered query that stops early reads only the students it needs.
+     */
+    public Stream<Student> stream(StudentQuery query) {
+        loadRemaining();
+        return plan(query).execute();
+    }
+
+    /**
+     * @return How the query would be answered, e.g. which index is used.
+     */
+    public String explain(StudentQuery query) {
+        loadRemaining();
+        return plan(query).toString();
+    }
+
+    private QueryPlan plan(StudentQuery query) {
+        return QueryPlan.choose(query, classIndex, statusIndex, students.values());
     }
 
+    /**
+     * @param className The class name, matched case-insensitively.
+     * @return A read-only view of the students in the class. Copy it before sorting.
+     */
     public List<Student> getStudentsByClass(String className) {
-        return students.values().stream()
-                .filter(student -> student.getStudentClass().equalsIgnoreCase(className))
-                .collect(Collectors.toList());
+        long start = metrics.start();
+        loadRemaining();
+        List<Student> members = classIndex.get(className);
+        metrics.record(TrackerMetrics.Operation.CLASS_LOOKUP, start);
+        return members;
     }
 
-    public void saveStudents() {
-        // Create a wrapper object to save both students and class names
-        Map<String, Object> dataToSave = new HashMap<>();
-        dataToSave.put("students", students);
-        dataToSave.put("classNames", classNames);
+    /**
+     * @return The number of students, including any not yet decoded from a binary data file.
+     */
+    public int getStudentCount() {
+        BinarySnapshot source = lazySnapshot;
+        return source != null ? source.size() + students.size() - decodedCount.get() : students.size();
+    }
+
+    /**
+     * @return The Gson instance used for the data file, with the Student adapter registered.
+     */
+    public Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * @return Latency histograms, counters and gauges for this tracker.
+     */
+    public TrackerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param className The class name, matched case-insensitively.
+     * @return The number of students in the class, without scanning.
+     */
+    public int getClassSize(String className) {
+        loadRemaining();
+        return classIndex.size(className);
+    }
 
-        try (FileWriter writer = new FileWriter(DATA_FILE)) {
-            gson.toJson(dataToSave, writer);
+    /**
+     * @param className The class name, matched case-insensitively.
+     * @return Every student in the class in report order, without re-sorting.
+     */
+    public List<Student> getRankedStudents(String className) {
+        loadRemaining();
+        ClassRanking ranking = classIndex.ranking(className);
+        return ranking.page(0, ranking.size());
+    }
+
+    /**
+     * Builds the rows of a class report: a snapshot of each student, in report
+     * order. Each row is internally consistent, and writers are only held up
+     * for the moment it takes to copy one student.
+     *
+     * @param className The class name, matched case-insensitively.
+     * @return Detached student snapshots, best first.
+     */
+    public List<Student> getClassReport(String className) {
+        long start = metrics.start();
+        List<Student> ranked = getRankedStudents(className);
+        List<Student> rows = new ArrayList<>(ranked.size());
+        boolean inOrder = true;
+        for (Student student : ranked) {
+            Student row = student.snapshot();
+            if (inOrder && !rows.isEmpty() && ClassRanking.REPORT_ORDER.compare(rows.get(rows.size() - 1), row) > 0) {
+                inOrder = false;
+            }
+            rows.add(row);
+        }
+        if (!inOrder) {
+            // A grade changed between reading the ranking and taking the snapshots.
+            rows.sort(ClassRanking.REPORT_ORDER);
+        }
+        metrics.record(TrackerMetrics.Operation.CLASS_REPORT, start);
+        return rows;
+    }
+
+    /**
+     * Like getClassReport, but fetches the rows a page at a time while they
+     * are iterated, so only one page of snapshots is held however large the
+     * class is. Pages follow on by key (ClassRanking.after), so if the class
+     * changes during the walk, every student whose rank did not change is
+     * still returned exactly once.
+     *
+     * @param className The class name, matched case-insensitively.
+     * @return Detached student snapshots, best first; each iteration walks the ranking again.
+     */
+    public Iterable<Student> getClassReportRows(String className) {
+        loadRemaining();
+        ClassRanking ranking = classIndex.ranking(className);
+        return () -> new Iterator<Student>() {
+            private List<Student> page = Collections.emptyList();
+            private int next;
+            private Student last;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (next < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                List<Student> ranked = ranking.after(last, REPORT_PAGE_SIZE);
+                exhausted = ranked.size() < REPORT_PAGE_SIZE;
+                page = new ArrayList<>(ranked.size());
+                for (Student student : ranked) {
+                    page.add(student.snapshot());
+                }
+                // A grade may have changed between reading the ranking and taking the snapshots.
+                page.sort(ClassRanking.REPORT_ORDER);
+                next = 0;
+                if (!page.isEmpty()) {
+                    last = page.get(page.size() - 1);
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+    }
+
+    /**
+     * @param className The class name, matched case-insensitively.
+     * @param k         The number of students wanted.
+     * @return The k best-ranked students in the class, best first.
+     */
+    public List<Student> getTopStudents(String className, int k) {
+        loadRemaining();
+        return classIndex.ranking(className).top(k);
+    }
+
+    /**
+     * @param className The class name, matched case-insensitively.
+     * @param offset    Number of top-ranked students to skip.
+     * @param limit     Page size.
+     * @return One page of the class ranking, best first.
+     */
+    public List<Student> getRankingPage(String className, int offset, int limit) {
+        loadRemaining();
+        return classIndex.ranking(className).page(offset, limit);
+    }
+
+    /**
+     * @return The student's 1-based rank within its class, or -1 if unknown.
+     */
+    public int getClassRank(Student student) {
+        loadRemaining();
+        return classIndex.ranking(student.getStudentClass()).rankOf(student);
+    }
+
+    /**
+     * Records the current grades as the end of a term. Grades keep changing
+     * afterwards as usual; the closed term stays as it was.
+     *
+     * @param termName A name not used by an earlier term, e.g. "2025 Term 1".
+     * @return The closed term.
+     * @throws IOException If the term history cannot be written.
+     * @throws IllegalArgumentException If the name is empty or already used.
+     */
+    public TermHistory.Term closeTerm(String termName) throws IOException {
+        loadRemaining();
+        return history.closeTerm(termName, students.values());
+    }
+
+    /**
+     * @return The closed terms, oldest first.
+     */
+    public List<TermHistory.Term> getTerms() {
+        return history.getTerms();
+    }
+
+    /**
+     * @param termName The term name, in any case.
+     * @return The closed term, if there is one with that name.
+     */
+    public Optional<TermHistory.Term> getTerm(String termName) {
+        return Optional.ofNullable(history.getTerm(termName));
+    }
+
+    /**
+     * @param studentId The ID in any case.
+     * @return The student as at the end of each closed term, by term name, oldest first.
+     */
+    public Map<String, Student> getGradeTrend(String studentId) {
+        return history.getTrend(studentId);
+    }
+
+    /**
+     * Makes every change so far durable. Only the journal tail is written,
+     * so the cost depends on how much changed rather than on the dataset size.
+     */
+    public void saveStudents() {
+        long start = metrics.start();
+        try {
+            journal.sync();
+            metrics.record(TrackerMetrics.Operation.SAVE, start);
         } catch (IOException e) {
             System.err.println("Error saving data: " + e.getMessage());
         }
     }
 
-    private void loadData() {
-        if (Files.exists(Paths.get(DATA_FILE))) {
-            try (FileReader reader = new FileReader(DATA_FILE)) {
-                Type type = new TypeToken<HashMap<String, Object>>() {
-                }.getType();
-                Map<String, Object> loadedData = gson.fromJson(reader, type);
+    /**
+     * Runs on the autosave thread once edits pause. A sharded store rewrites
+     * only the changed shards, so it compacts. A single JSON or binary file
+     * would be rewritten whole, and a lazily loaded binary file decoded in
+     * full, so those only force the journal to disk and leave compaction to
+     * the journal size threshold.
+     */
+    private void autosave() {
+        if (shardedStore != null) {
+            compact();
+        } else {
+            saveStudents();
+        }
+    }
 
-                // Use Gson's internal converter to get the correct types
-                String studentsJson = gson.toJson(loadedData.get("students"));
-                String classesJson = gson.toJson(loadedData.get("classNames"));
+    /**
+     * Folds the journal into a new snapshot of the data file, or into the
+     * changed shards of a sharded store. Runs on the journal's compaction
+     * thread once the journal passes its size threshold, and on the autosave
+     * thread once edits pause if the store is sharded.
+     *
+     * Only the journal rotation excludes writers. The maps are copied after
+     * it, so the snapshot may already hold some changes that are also in the
+     * new journal; replaying them again on load is harmless.
+     *
+     * Does nothing if the data file could not be loaded, so it is never
+     * replaced by the empty tracker; changes then stay in the journal.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            if (loadFailed) {
+                System.err.println("Not compacting: " + dataFile + " could not be loaded and is left as it is.");
+                return;
+            }
+            long start = metrics.start();
+            loadRemaining();
+            Set<String> shardsToSave = null;
+            try {
+                checkpointLock.writeLock().lock();
+                try {
+                    journal.rotate();
+                    if (shardedStore != null) {
+                        shardsToSave = new HashSet<>(dirtyShards);
+                        dirtyShards.removeAll(shardsToSave);
+                    }
+                } finally {
+                    checkpointLock.writeLock().unlock();
+                }
+                // The disk force and file moves run after writers are let go.
+                journal.finishRotation();
+                long bytes;
+                if (shardedStore != null) {
+                    bytes = shardedStore.write(shardsToSave, classIndex::get, new HashSet<>(classNames), nextId.get());
+                    metrics.addBytesWritten(bytes);
+                } else {
+                    Map<String, Student> studentsToSave = new HashMap<>(students);
+                    Set<String> classesToSave = new HashSet<>(classNames);
+                    bytes = writeSnapshot(dataFile, studentsToSave, classesToSave);
+                }
+                journal.finishCompaction();
+                metrics.record(TrackerMetrics.Operation.COMPACT, start, bytes);
+            } catch (IOException e) {
+                if (shardsToSave != null) {
+                    dirtyShards.addAll(shardsToSave);
+                }
+                journal.abortCompaction();
+                System.err.println("Error compacting journal: " + e.getMessage());
+            }
+        }
+    }
 
-                Type studentMapType = new TypeToken<HashMap<String, Student>>() {
-                }.getType();
-                Type classSetType = new TypeToken<HashSet<String>>() {
-                }.getType();
+    /**
+     * Writes every student and class to a standalone data file, in the
+     * binary format if the name ends in ".bin", as a shard directory if it
+     * ends in ".shards" and as JSON otherwise.
+     * The tracker's own data file and journal are not touched.
+     *
+     * @param target The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void exportSnapshot(Path target) throws IOException {
+        loadRemaining();
+        writeSnapshot(target, new HashMap<>(students), new HashSet<>(classNames));
+    }
 
-                this.students = gson.fromJson(studentsJson, studentMapType);
-                this.classNames = gson.fromJson(classesJson, classSetType);
+    /**
+     * Converts a data file between JSON, the binary format and a shard
+     * directory, including any changes still in its journal. The format of
+     * each side follows its name.
+     *
+     * @param source The data file to read.
+     * @param target The file to write.
+     * @throws IOException If the target cannot be written.
+     */
+    public static void convert(String source, String target) throws IOException {
+        try (GradeTracker tracker = new GradeTracker(source)) {
+            tracker.exportSnapshot(Paths.get(target));
+        }
+    }
 
-                if (this.students == null)
-                    this.students = new HashMap<>();
-                if (this.classNames == null)
-                    this.classNames = new HashSet<>();
+    /**
+     * @return The size of the written file in bytes.
+     */
+    private long writeSnapshot(Path target, Map<String, Student> studentsToSave, Set<String> classesToSave)
+            throws IOException {
+        if (ShardedStore.usesShardedFormat(target)) {
+            Map<String, List<Student>> shards = new HashMap<>();
+            for (Student student : studentsToSave.values()) {
+                shards.computeIfAbsent(ShardedStore.shardKey(student.getStudentClass()), k -> new ArrayList<>())
+                        .add(student);
+            }
+            long bytes = new ShardedStore(target, gson).write(shards.keySet(), shards::get, classesToSave,
+                    nextId.get());
+            metrics.addBytesWritten(bytes);
+            return bytes;
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        boolean binary = target.equals(dataFile) ? binaryFormat : BinarySnapshot.usesBinaryFormat(target);
+        if (binary) {
+            BinarySnapshot.write(temp, studentsToSave, classesToSave);
+        } else {
+            Map<String, Object> dataToSave = new HashMap<>();
+            dataToSave.put("students", studentsToSave);
+            dataToSave.put("classNames", classesToSave);
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(dataToSave, writer);
+            }
+        }
+        long bytes = Files.size(temp);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        metrics.addBytesWritten(bytes);
+        return bytes;
+    }
 
+    /**
+     * Flushes the journal and stops its background threads.
+     */
+    @Override
+    public void close() {
+        if (autosave != null) {
+            autosave.close();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        }
+        metrics.close();
+    }
+
+    private void loadData() {
+        long start = metrics.start();
+        if (shardedStore != null) {
+            if (!shardedStore.exists()) {
+                migrateLegacyDataFile();
+            }
+            migrateLegacyHistory();
+            if (shardedStore.exists()) {
+                try {
+                    long opened = System.nanoTime();
+                    long bytes = shardedStore.load(students, classNames, gradeStore);
+                    metrics.addBytesRead(bytes);
+                    metrics.record(TrackerMetrics.Operation.LOAD, start, bytes);
+                    System.err.printf("Loaded %d students from %d shards in %s in %.1f ms%n", students.size(),
+                            shardedStore.getShardCount(), dataFile, (System.nanoTime() - opened) / 1_000_000.0);
+                } catch (IOException | RuntimeException e) {
+                    failLoad(e);
+                }
+            }
+        } else if (binaryFormat && Files.exists(dataFile)) {
+            try {
+                long opened = System.nanoTime();
+                BinarySnapshot snapshot = BinarySnapshot.open(dataFile);
+                classNames.addAll(snapshot.getClassNames());
+                if (snapshot.size() > 0) {
+                    this.lazySnapshot = snapshot;
+                }
+                // Pages are read from the mapping on demand, so no bytes are counted up front.
+                metrics.record(TrackerMetrics.Operation.LOAD, start);
+                System.err.printf("Opened %d students from %s in %.1f ms (decoded on first access)%n",
+                        snapshot.size(), dataFile, (System.nanoTime() - opened) / 1_000_000.0);
+            } catch (IOException e) {
+                failLoad(e);
+            }
+        } else if (Files.exists(dataFile)) {
+            try (Reader reader = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+                StudentDataLoader loader = new StudentDataLoader(gradeStore, students, classNames);
+                loader.load(reader);
+                long bytes = Files.size(dataFile);
+                metrics.addBytesRead(bytes);
+                metrics.record(TrackerMetrics.Operation.LOAD, start, bytes);
+                System.err.printf("Loaded %d students from %s in %.1f ms (%.0f records/sec)%n",
+                        students.size(), dataFile, loader.getElapsedMillis(), loader.getRecordsPerSecond());
             } catch (Exception e) {
-                System.err.println("Error loading data, starting fresh: " + e.getMessage());
+                failLoad(e);
             }
         }
     }
 
+    /**
+     * Drops whatever a failed load read so far and stops compaction from
+     * replacing the data file, which is left for the user to repair.
+     */
+    private void failLoad(Exception e) {
+        loadFailed = true;
+        students.clear();
+        classNames.clear();
+        System.err.println("Error loading data, starting fresh: " + e.getMessage());
+    }
+
+    /**
+     * One-time migration: when a shard directory does not exist yet but the
+     * JSON file of the same name does ("students.json" for "students.shards"),
+     * the JSON file and its journal are converted into shards. The JSON file
+     * is left in place.
+     */
+    private void migrateLegacyDataFile() {
+        Path legacy = legacyDataFile();
+        if (!Files.exists(legacy)) {
+            return;
+        }
+        try {
+            convert(legacy.toString(), dataFile.toString());
+            System.err.println("Migrated " + legacy + " to " + dataFile + "; the original file is no longer used.");
+        } catch (IOException e) {
+            System.err.println("Error migrating " + legacy + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the closed terms kept next to the legacy JSON file, unless the
+     * shard directory already has a history of its own. Also covers stores
+     * migrated before the history was carried over.
+     */
+    private void migrateLegacyHistory() {
+        Path legacyHistory = historyPath(legacyDataFile());
+        Path target = historyPath(dataFile);
+        if (!Files.isDirectory(legacyHistory) || Files.exists(target)) {
+            return;
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(temp);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(legacyHistory)) {
+                files = listing.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Files.copy(file, temp.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            System.err.println("Copied term history from " + legacyHistory + " to " + target);
+        } catch (IOException e) {
+            System.err.println("Error migrating term history " + legacyHistory + ": " + e.getMessage());
+        }
+    }
+
+    private Path legacyDataFile() {
+        String name = dataFile.getFileName().toString();
+        return dataFile.resolveSibling(name.substring(0, name.length() - ShardedStore.EXTENSION.length()) + ".json");
+    }
+
+    private boolean replayJournal() {
+        try {
+            return journal.replay(this::applyRecord);
+        } catch (IOException e) {
+            System.err.println("Error replaying journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void applyRecord(MutationJournal.Record record) {
+        switch (record.getOp()) {
+            case MutationJournal.Record.ADD_CLASS:
+                classNames.add(record.getName());
+                break;
+            case MutationJournal.Record.ADD_STUDENT:
+                // IDs are never reused, so an existing student means the snapshot already has it.
+                if (!exists(record.getId())) {
+                    students.put(record.getId(), newStudent(record.getId(), record.getName(), record.getStudentClass()));
+                }
+                break;
+            case MutationJournal.Record.GRADE:
+                Student student = lookup(record.getId());
+                if (gradeStore != null && GradeStore.subjectOrdinal(record.getSubject()) < 0) {
+                    System.err.println("Warning: skipping journal grade for unknown subject \"" + record.getSubject()
+                            + "\" (not stored in columnar mode)");
+                } else if (student != null) {
+                    student.addSubjectGrade(record.getSubject(), Grade.of(record.getScore(), record.getStatus()));
+                }
+                break;
+            default:
+                System.err.println("Skipping unknown journal record: " + record.getOp());
+        }
+    }
+
+    /**
+     * Confirms every student's cached totals match a full recomputation.
+     * Mismatches are reported but do not stop the application.
+     *
+     * @return The number of students whose cached values were wrong.
+     */
+    public int verifyDerivedState() {
+        int mismatches = 0;
+        for (Student student : students.values()) {
+            if (!student.hasConsistentTotals()) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            System.err.println("Warning: cached totals differ from recomputation for " + mismatches + " students.");
+        }
+        return mismatches;
+    }
+
     private int calculateNextId() {
-        if (students.isEmpty())
-            return 1;
-        return students.keySet().stream()
-                .mapToInt(id -> Integer.parseInt(id.substring(1)))
-                .max()
-                .orElse(0) + 1;
+        BinarySnapshot source = lazySnapshot;
+        int fromSnapshot = source != null ? source.getNextId()
+                : shardedStore != null ? shardedStore.getNextId() : 1;
+        return Math.max(fromSnapshot, students.getMaxNumber() + 1);
     }
 }
\ No newline at end of file
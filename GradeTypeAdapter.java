@@ -0,0 +1,88 @@
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson adapter for Grade in the students.json layout,
+ * {"score": 90.0, "status": "Graded"}. Reading hands out the shared Grade
+ * instances; a missing or null status reads as "Not Graded" and a missing
+ * score as -1. An unknown status fails the read rather than losing the label.
+ *
+ * STATUS is the adapter for a Grade.Status on its own, written as its label
+ * (used by the journal records).
+ */
+public class GradeTypeAdapter extends TypeAdapter<Grade> {
+    public static final TypeAdapter<Grade.Status> STATUS = new TypeAdapter<Grade.Status>() {
+        @Override
+        public void write(JsonWriter out, Grade.Status status) throws IOException {
+            if (status == null) {
+                out.nullValue();
+            } else {
+                out.value(status.getLabel());
+            }
+        }
+
+        @Override
+        public Grade.Status read(JsonReader in) throws IOException {
+            return readStatus(in);
+        }
+    };
+
+    @Override
+    public void write(JsonWriter out, Grade grade) throws IOException {
+        if (grade == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("score").value(grade.getScore());
+        out.name("status").value(grade.getStatus().getLabel());
+        out.endObject();
+    }
+
+    @Override
+    public Grade read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        double score = -1;
+        Grade.Status status = Grade.Status.NOT_GRADED;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "score":
+                    score = in.nextDouble();
+                    break;
+                case "status":
+                    Grade.Status read = readStatus(in);
+                    status = read != null ? read : Grade.Status.NOT_GRADED;
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return Grade.of(score, status);
+    }
+
+    /**
+     * @return The status, or null for a JSON null.
+     * @throws IOException If the value is not a known status label.
+     */
+    static Grade.Status readStatus(JsonReader in) throws IOException {
+        String path = in.getPath();
+        String label = StudentTypeAdapter.nextStringOrNull(in);
+        if (label == null) {
+            return null;
+        }
+        Grade.Status status = Grade.Status.find(label);
+        if (status == null) {
+            throw new IOException("Unknown grade status \"" + label + "\" at " + path);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,177 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator for GradeServer. Each of the concurrent
+ * clients sends its next request as soon as the previous one completes:
+ * 80% student lookups, 18% grade submissions and 2% class reports (first
+ * page of 50). Prints throughput and p50/p99 latency per request type.
+ *
+ * Usage: java -cp .:gson-2.10.1.jar LoadGenerator [baseUrl] [concurrency] [seconds]
+ */
+public class LoadGenerator {
+    private enum Kind {
+        LOOKUP("Lookup"), GRADE("Grade"), REPORT("Report");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final String baseUrl;
+    private final List<String> studentIds = new ArrayList<>();
+    private final List<String> classNames = new ArrayList<>();
+    private final TrackerMetrics.Histogram[] latencies = new TrackerMetrics.Histogram[Kind.values().length];
+    private TrackerMetrics.Histogram all = new TrackerMetrics.Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    public LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new TrackerMetrics.Histogram();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:" + GradeServer.DEFAULT_PORT;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        LoadGenerator generator = new LoadGenerator(baseUrl);
+        generator.discover();
+        System.out.printf("Target: %s | Students sampled: %d | Clients: %d | Duration: %ds%n", baseUrl,
+                generator.studentIds.size(), concurrency, seconds);
+        generator.run(concurrency, Math.max(1, seconds / 5)); // warm-up, not reported
+        generator.reset();
+        long elapsed = generator.run(concurrency, seconds);
+        generator.print(elapsed);
+    }
+
+    /**
+     * Collects class names and a sample of student IDs from the server.
+     */
+    private void discover() throws Exception {
+        JsonArray classes = JsonParser.parseString(get("/classes")).getAsJsonArray();
+        for (JsonElement item : classes) {
+            String className = item.getAsJsonObject().get("name").getAsString();
+            classNames.add(className);
+            JsonObject report = JsonParser.parseString(get(reportPath(className, 1000))).getAsJsonObject();
+            for (JsonElement student : report.getAsJsonArray("students")) {
+                studentIds.add(student.getAsJsonObject().get("studentId").getAsString());
+            }
+        }
+        if (studentIds.isEmpty()) {
+            throw new IllegalStateException("The server has no students to query.");
+        }
+    }
+
+    private String get(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static String reportPath(String className, int limit) {
+        return "/classes/" + URLEncoder.encode(className, StandardCharsets.UTF_8).replace("+", "%20")
+                + "/report?limit=" + limit;
+    }
+
+    /**
+     * @return The run time in nanoseconds.
+     */
+    private long run(int concurrency, int seconds) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            next(deadline, done);
+        }
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    private void next(long deadline, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+        Kind kind = dice < 80 ? Kind.LOOKUP : dice < 98 ? Kind.GRADE : Kind.REPORT;
+        String id = studentIds.get(random.nextInt(studentIds.size()));
+        HttpRequest request;
+        switch (kind) {
+            case GRADE:
+                String body = "{\"Maths\":{\"score\":" + random.nextInt(101) + "},\"Science\":{\"score\":"
+                        + random.nextInt(101) + "}}";
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/students/" + id + "/grades"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                break;
+            case REPORT:
+                request = HttpRequest.newBuilder(URI.create(baseUrl
+                        + reportPath(classNames.get(random.nextInt(classNames.size())), 50))).build();
+                break;
+            default:
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/students/" + id)).build();
+        }
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long elapsed = System.nanoTime() - sent;
+            if (error != null || response.statusCode() >= 400) {
+                errors.increment();
+            } else {
+                latencies[kind.ordinal()].record(elapsed);
+                all.record(elapsed);
+            }
+            next(deadline, done);
+        });
+    }
+
+    private void reset() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new TrackerMetrics.Histogram();
+        }
+        all = new TrackerMetrics.Histogram();
+        errors.reset();
+    }
+
+    private void print(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%-8s | %10s | %12s | %10s | %10s | %10s%n", "Request", "Count", "Req/sec", "p50 (ms)",
+                "p99 (ms)", "Max (ms)");
+        for (Kind kind : Kind.values()) {
+            printRow(kind.label, latencies[kind.ordinal()], seconds);
+        }
+        printRow("All", all, seconds);
+        System.out.printf("Errors: %d%n", errors.sum());
+    }
+
+    private static void printRow(String label, TrackerMetrics.Histogram histogram, double seconds) {
+        System.out.printf("%-8s | %10d | %,12.0f | %10.2f | %10.2f | %10.2f%n", label, histogram.getCount(),
+                histogram.getCount() / seconds, histogram.getPercentileMillis(50),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis());
+    }
+}
@@ -0,0 +1,454 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of tracker mutations, one compact JSON record per line.
+ * Records are buffered and forced to disk once per group-commit window,
+ * so a crash loses at most that window of work. When the log grows past
+ * the compaction threshold it is rotated aside and the owner is asked to
+ * fold it into a fresh snapshot on a background thread.
+ *
+ * Every record carries absolute values, so replaying a record that is
+ * already reflected in the snapshot is harmless.
+ */
+public class MutationJournal implements AutoCloseable {
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1L << 20; // 1 MiB
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 200;
+
+    /**
+     * A single journal entry. Unused fields stay null and are left out of the JSON.
+     */
+    public static class Record {
+        public static final String ADD_CLASS = "addClass";
+        public static final String ADD_STUDENT = "addStudent";
+        public static final String GRADE = "grade";
+
+        String op;
+        String id;
+        String name;
+        String studentClass;
+        String subject;
+        Double score;
+        Grade.Status status;
+
+        static Record addClass(String className) {
+            Record r = new Record();
+            r.op = ADD_CLASS;
+            r.name = className;
+            return r;
+        }
+
+        static Record addStudent(Student student) {
+            Record r = new Record();
+            r.op = ADD_STUDENT;
+            r.id = student.getStudentId();
+            r.name = student.getName();
+            r.studentClass = student.getStudentClass();
+            return r;
+        }
+
+        static Record grade(Student student, String subject, Grade grade) {
+            Record r = new Record();
+            r.op = GRADE;
+            r.id = student.getStudentId();
+            r.subject = subject;
+            r.score = grade.getScore();
+            r.status = grade.getStatus();
+            return r;
+        }
+
+        // Getters
+        public String getOp() {
+            return op;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStudentClass() {
+            return studentClass;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public double getScore() {
+            return score != null ? score : -1;
+        }
+
+        public Grade.Status getStatus() {
+            return status != null ? status : Grade.Status.NOT_GRADED;
+        }
+    }
+
+    private final Path journalFile;
+    private final Path rotatedFile;
+    // Takes new records during a rotation until the old journal has moved out of the way.
+    private final Path nextFile;
+    private final Gson gson;
+    private final long compactionThreshold;
+    private final ScheduledExecutorService syncExecutor;
+    private final ExecutorService compactionExecutor;
+    private Runnable compactor;
+
+    private FileOutputStream out;
+    private FileChannel channel;
+    private Writer writer;
+    private long size;
+    private long bytesAppended;
+    private boolean dirty;
+    private boolean compactionPending;
+    // The journal set aside by rotate(), until finishRotation() has moved it.
+    private boolean rotating;
+    private Writer retiredWriter;
+    private FileChannel retiredChannel;
+
+    public MutationJournal(Path journalFile, Gson gson) {
+        this(journalFile, gson, DEFAULT_COMPACTION_THRESHOLD, DEFAULT_GROUP_COMMIT_MILLIS);
+    }
+
+    /**
+     * @param journalFile         Path of the live journal. The rotated log sits next to it with a ".1" suffix.
+     * @param gson                Serializer for the records.
+     * @param compactionThreshold Approximate journal size in bytes that triggers compaction.
+     * @param groupCommitMillis   Interval between forced flushes to disk.
+     */
+    public MutationJournal(Path journalFile, Gson gson, long compactionThreshold, long groupCommitMillis) {
+        this.journalFile = journalFile;
+        this.rotatedFile = journalFile.resolveSibling(journalFile.getFileName() + ".1");
+        this.nextFile = journalFile.resolveSibling(journalFile.getFileName() + ".new");
+        this.gson = gson;
+        this.compactionThreshold = compactionThreshold;
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(daemon("journal-sync"));
+        this.compactionExecutor = Executors.newSingleThreadExecutor(daemon("journal-compaction"));
+        this.syncExecutor.scheduleWithFixedDelay(this::syncQuietly, groupCommitMillis, groupCommitMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the task run in the background once the journal passes the compaction threshold.
+     * The task is expected to call rotate() and finishRotation(), write a snapshot and then call
+     * finishCompaction().
+     */
+    public void setCompactor(Runnable compactor) {
+        this.compactor = compactor;
+    }
+
+    /**
+     * Replays the rotated log left by an unfinished compaction, then the live log.
+     * Damaged records are skipped. A torn record at the end of the live log is
+     * cut off, and a last record whose newline never reached the disk is
+     * terminated, so new appends start on a line of their own.
+     *
+     * @param consumer Receives each record in order.
+     * @return true if a rotated log was found and still needs to be compacted.
+     */
+    public boolean replay(Consumer<Record> consumer) throws IOException {
+        if (Files.exists(nextFile)) {
+            // A rotation was cut short; finish moving the files as finishRotation() would have.
+            if (Files.exists(journalFile)) {
+                moveToRotated(journalFile);
+            }
+            Files.move(nextFile, journalFile);
+        }
+        boolean hasRotated = Files.exists(rotatedFile);
+        if (hasRotated) {
+            replayFile(rotatedFile, consumer);
+        }
+        if (Files.exists(journalFile)) {
+            long validLength = replayFile(journalFile, consumer);
+            try (FileChannel ch = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (validLength < ch.size()) {
+                    ch.truncate(validLength);
+                }
+                ByteBuffer last = ByteBuffer.allocate(1);
+                if (validLength > 0 && ch.read(last, validLength - 1) == 1 && last.get(0) != '\n') {
+                    ch.write(ByteBuffer.wrap(new byte[] {'\n'}), validLength);
+                }
+            }
+        }
+        return hasRotated;
+    }
+
+    /**
+     * @return The length of the file up to the end of the last record that
+     *         was read in full, counting its newline only if it has one.
+     */
+    private long replayFile(Path file, Consumer<Record> consumer) throws IOException {
+        long validLength = 0;
+        long offset = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            while (true) {
+                int b = in.read();
+                if (b != -1 && b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                boolean terminated = b == '\n';
+                if (!terminated && line.size() == 0) {
+                    break;
+                }
+                long start = offset;
+                offset += line.size() + (terminated ? 1 : 0);
+                Record record;
+                try {
+                    record = gson.fromJson(line.toString(StandardCharsets.UTF_8), Record.class);
+                } catch (JsonParseException e) {
+                    if (!terminated) {
+                        System.err.println("Ignoring torn record at the end of " + file + ": " + e.getMessage());
+                        break;
+                    }
+                    // A complete line that does not parse; later records are still good.
+                    System.err.println("Skipping damaged journal record at byte " + start + " of " + file + ": "
+                            + e.getMessage());
+                    validLength = offset;
+                    line.reset();
+                    continue;
+                }
+                if (record != null && record.op != null) {
+                    consumer.accept(record);
+                }
+                validLength = offset;
+                if (!terminated) {
+                    break;
+                }
+                line.reset();
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Opens the live journal for appending. Must be called after replay().
+     */
+    public synchronized void open() throws IOException {
+        openWriter(journalFile);
+    }
+
+    private void openWriter(Path file) throws IOException {
+        this.out = new FileOutputStream(file.toFile(), true);
+        this.channel = out.getChannel();
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.size = channel.size();
+    }
+
+    /**
+     * Buffers a record. It reaches the disk at the next group commit or sync().
+     * The record is serialized before the journal lock is taken, so concurrent
+     * writers only contend for the buffer copy.
+     */
+    public void append(Record record) {
+        String line = gson.toJson(record);
+        // Counted in UTF-8 bytes, like the file, so non-ASCII names do not skew the threshold.
+        int bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        synchronized (this) {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.write(line);
+                writer.write('\n');
+                size += bytes;
+                bytesAppended += bytes;
+                dirty = true;
+            } catch (IOException e) {
+                System.err.println("Error writing journal: " + e.getMessage());
+            }
+            if (size >= compactionThreshold && !compactionPending && compactor != null) {
+                compactionPending = true;
+                compactionExecutor.execute(compactor);
+            }
+        }
+    }
+
+    /**
+     * Flushes buffered records and forces them to disk. Appends can continue
+     * while the disk force is in progress.
+     */
+    public void sync() throws IOException {
+        FileChannel toForce;
+        synchronized (this) {
+            if (writer == null || !dirty) {
+                return;
+            }
+            writer.flush();
+            dirty = false;
+            toForce = channel;
+        }
+        try {
+            toForce.force(false);
+        } catch (ClosedChannelException e) {
+            // Rotated or closed meanwhile; both force the file before closing it.
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            System.err.println("Error syncing journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the live journal aside and starts a new, empty one. Only the
+     * writer swap holds the lock that appends take; finishRotation() then
+     * forces the old journal and moves it into the rotated log without it.
+     * Records in the rotated log must be covered by the next snapshot before
+     * finishCompaction().
+     *
+     * If the previous rotation did not finish, nothing is swapped and
+     * finishRotation() completes that one instead.
+     */
+    public synchronized void rotate() throws IOException {
+        if (rotating) {
+            return;
+        }
+        retiredWriter = writer;
+        retiredChannel = channel;
+        openWriter(nextFile);
+        dirty = false;
+        rotating = true;
+    }
+
+    /**
+     * Forces the journal set aside by rotate() and moves it into the rotated
+     * log, then gives the new journal the live name. Appends continue meanwhile.
+     */
+    public void finishRotation() throws IOException {
+        Writer retired;
+        FileChannel retiredToForce;
+        synchronized (this) {
+            if (!rotating) {
+                return;
+            }
+            retired = retiredWriter;
+            retiredToForce = retiredChannel;
+        }
+        if (retired != null) {
+            retired.flush();
+            retiredToForce.force(false);
+            retired.close();
+        }
+        synchronized (this) {
+            retiredWriter = null;
+            retiredChannel = null;
+        }
+        if (Files.exists(journalFile)) {
+            moveToRotated(journalFile);
+        }
+        // The new journal keeps its open handle across the rename.
+        Files.move(nextFile, journalFile);
+        synchronized (this) {
+            rotating = false;
+        }
+    }
+
+    private void moveToRotated(Path file) throws IOException {
+        if (Files.exists(rotatedFile)) {
+            // A previous compaction failed; keep its records ahead of the new ones.
+            Files.write(rotatedFile, Files.readAllBytes(file), StandardOpenOption.APPEND);
+            Files.delete(file);
+        } else {
+            Files.move(file, rotatedFile);
+        }
+    }
+
+    /**
+     * Drops the rotated log once its records are safely in a snapshot.
+     */
+    public synchronized void finishCompaction() throws IOException {
+        Files.deleteIfExists(rotatedFile);
+        compactionPending = false;
+    }
+
+    /**
+     * Marks a failed compaction so the next threshold crossing retries it.
+     */
+    public synchronized void abortCompaction() {
+        compactionPending = false;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Bytes appended since the journal was created, across rotations.
+     */
+    public synchronized long getBytesAppended() {
+        return bytesAppended;
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+            out = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncExecutor.shutdown();
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (retiredWriter != null) {
+                // A rotation that did not finish; replay() completes it on the next start.
+                retiredWriter.flush();
+                retiredChannel.force(false);
+                retiredWriter.close();
+                retiredWriter = null;
+                retiredChannel = null;
+            }
+            if (writer != null) {
+                writer.flush();
+                channel.force(false);
+            }
+            closeWriter();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
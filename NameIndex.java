@@ -0,0 +1,276 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary index from student name to students, for search by name.
+ * Names are matched case-insensitively with runs of whitespace collapsed.
+ *
+ * Each distinct name is indexed once, however many students share it:
+ * - in sorted maps keyed by the full name and by every later word, so a
+ *   prefix lookup is a range scan that stops after the first N students;
+ * - in a trigram index, so a misspelt name still finds close matches.
+ *   Only the rarest trigrams of the query are scanned for candidates.
+ *
+ * Safe for concurrent use; readers never lock.
+ */
+public class NameIndex {
+    /** Share of the query's trigrams a name must contain to count as a fuzzy match. */
+    public static final double MIN_SIMILARITY = 0.4;
+    // Separates a word suffix from the full name in word keys, and sorts below any letter.
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Entry> nameKeys = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Entry> wordKeys = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Entry>> trigrams = new ConcurrentHashMap<>();
+
+    /**
+     * One distinct normalized name and the students who have it, in the
+     * order they were added. Uses the same published (array, size) pair as
+     * ClassIndex, so readers see a consistent prefix without locking.
+     */
+    private static final class Entry {
+        private static final class State {
+            final Student[] items;
+            final int size;
+
+            State(Student[] items, int size) {
+                this.items = items;
+                this.size = size;
+            }
+        }
+
+        final String name;
+        final Set<String> grams;
+        private volatile State state = new State(new Student[2], 0);
+
+        Entry(String name) {
+            this.name = name;
+            this.grams = trigramsOf(name);
+        }
+
+        synchronized void append(Student student) {
+            State current = state;
+            Student[] items = current.items;
+            if (current.size == items.length) {
+                items = Arrays.copyOf(items, items.length + (items.length >> 1));
+            }
+            items[current.size] = student;
+            state = new State(items, current.size + 1);
+        }
+
+        /**
+         * Adds this name's students to the result until it holds limit students.
+         *
+         * @return True once the result is full.
+         */
+        boolean collect(String className, int limit, List<Student> result) {
+            State current = state;
+            for (int i = 0; i < current.size && result.size() < limit; i++) {
+                Student student = current.items[i];
+                if (className == null || className.equalsIgnoreCase(student.getStudentClass())) {
+                    result.add(student);
+                }
+            }
+            return result.size() >= limit;
+        }
+    }
+
+    private static final class Match {
+        final Entry entry;
+        final double similarity;
+
+        Match(Entry entry, double similarity) {
+            this.entry = entry;
+            this.similarity = similarity;
+        }
+    }
+
+    private static final Comparator<Match> BEST_MATCH_FIRST = Comparator
+            .comparingDouble((Match m) -> -m.similarity)
+            .thenComparingInt(m -> m.entry.grams.size())
+            .thenComparing(m -> m.entry.name);
+
+    /**
+     * Adds a student under its name.
+     *
+     * @param student The student to index.
+     */
+    public void add(Student student) {
+        String name = normalize(student.getName());
+        entries.computeIfAbsent(name, this::register).append(student);
+    }
+
+    private Entry register(String name) {
+        Entry entry = new Entry(name);
+        nameKeys.put(name, entry);
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            wordKeys.put(name.substring(i + 1) + KEY_SEPARATOR + name, entry);
+        }
+        for (String gram : entry.grams) {
+            trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Finds students by name: prefix matches first, then fuzzy matches to
+     * fill the remaining places.
+     *
+     * @param query     The name or start of a name, in any case.
+     * @param className Only return students in this class (any case), or null for all classes.
+     * @param limit     Most students to return.
+     * @return The matching students, best first.
+     */
+    public List<Student> search(String query, String className, int limit) {
+        List<Student> result = prefix(query, className, limit);
+        if (result.size() < limit) {
+            Set<Student> found = new HashSet<>(result);
+            for (Student student : fuzzy(query, className, limit)) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (found.add(student)) {
+                    result.add(student);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds students whose full name, or any word after the first, starts
+     * with the query. Names matching from their first word come first;
+     * within each group names are in alphabetical order.
+     *
+     * @param query     The start of a name, in any case.
+     * @param className Only return students in this class (any case), or null for all classes.
+     * @param limit     Most students to return.
+     * @return The matching students, best first.
+     */
+    public List<Student> prefix(String query, String className, int limit) {
+        String key = normalize(query);
+        List<Student> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        Set<Entry> seen = new HashSet<>();
+        if (collect(range(nameKeys, key), seen, className, limit, result)) {
+            return result;
+        }
+        collect(range(wordKeys, key), seen, className, limit, result);
+        return result;
+    }
+
+    private static Collection<Entry> range(NavigableMap<String, Entry> keys, String prefix) {
+        return keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    private static boolean collect(Collection<Entry> candidates, Set<Entry> seen, String className, int limit,
+            List<Student> result) {
+        for (Entry entry : candidates) {
+            if (seen.add(entry) && entry.collect(className, limit, result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds students whose name shares at least MIN_SIMILARITY of the
+     * query's trigrams, so a name with a typo or two still matches.
+     * Closer names come first; ties go to the shorter name.
+     *
+     * @param query     The name, in any case.
+     * @param className Only return students in this class (any case), or null for all classes.
+     * @param limit     Most students to return.
+     * @return The matching students, best first.
+     */
+    public List<Student> fuzzy(String query, String className, int limit) {
+        Set<String> queryGrams = trigramsOf(normalize(query));
+        List<Student> result = new ArrayList<>();
+        if (queryGrams.isEmpty() || limit <= 0) {
+            return result;
+        }
+        int minShared = (int) Math.ceil(queryGrams.size() * MIN_SIMILARITY);
+        // A name missing from all of the rarest (size - minShared + 1) lists
+        // cannot share minShared trigrams, so only those lists are scanned.
+        List<Set<Entry>> postings = new ArrayList<>();
+        for (String gram : queryGrams) {
+            postings.add(trigrams.getOrDefault(gram, Collections.emptySet()));
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Entry> candidates = new HashSet<>();
+        for (int i = 0; i <= queryGrams.size() - minShared; i++) {
+            candidates.addAll(postings.get(i));
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Entry entry : candidates) {
+            int shared = 0;
+            for (String gram : queryGrams) {
+                if (entry.grams.contains(gram)) {
+                    shared++;
+                }
+            }
+            if (shared >= minShared) {
+                matches.add(new Match(entry, shared / (double) queryGrams.size()));
+            }
+        }
+        matches.sort(BEST_MATCH_FIRST);
+        for (Match match : matches) {
+            if (match.entry.collect(className, limit, result)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of distinct names indexed.
+     */
+    public int distinctNames() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        nameKeys.clear();
+        wordKeys.clear();
+        trigrams.clear();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Trigrams of each word, padded as "  word " so the start of a word
+     * weighs more than its end.
+     */
+    private static Set<String> trigramsOf(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : name.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+}
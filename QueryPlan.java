@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * How a StudentQuery is answered. The planner picks the source with the
+ * fewest candidates among:
+ *
+ *   status index   students with one subject outcome (e.g. Maths "Absent")
+ *   class index    the members of one class
+ *   class ranking  one class in report order, walked best first until the
+ *                  limit is met
+ *   ranking merge  the first matches of every class ranking, merged, when
+ *                  report order and a limit are asked for across classes
+ *   scan           every student, on several threads if the query allows
+ *
+ * Every candidate is still checked against the whole query. Without an
+ * order the result is a lazy stream that stops at the limit. An ordered
+ * limit keeps only the best K in a bounded heap instead of sorting every
+ * match; heaps are also used for full sorts, because grades may change
+ * while the students are compared and a heap, unlike List.sort, tolerates
+ * that.
+ */
+public class QueryPlan {
+    enum Source {
+        STATUS_INDEX, CLASS_INDEX, CLASS_RANKING, RANKING_MERGE, SCAN
+    }
+
+    private final StudentQuery query;
+    private final Source source;
+    private final String sourceDescription;
+    private final Supplier<Stream<Student>> candidates;
+
+    private QueryPlan(StudentQuery query, Source source, String sourceDescription,
+            Supplier<Stream<Student>> candidates) {
+        this.query = query;
+        this.source = source;
+        this.sourceDescription = sourceDescription;
+        this.candidates = candidates;
+    }
+
+    /**
+     * @param query    The query to plan.
+     * @param classes  The tracker's class index.
+     * @param statuses The tracker's status index.
+     * @param all      Every student, for a scan.
+     * @return The cheapest plan the indexes allow.
+     */
+    public static QueryPlan choose(StudentQuery query, ClassIndex classes, StatusIndex statuses,
+            Collection<Student> all) {
+        long cheapest = all.size();
+        QueryPlan plan = new QueryPlan(query, Source.SCAN,
+                String.format("%s (%,d students)", query.isParallel() ? "parallel scan" : "scan", cheapest),
+                () -> query.isParallel() ? all.parallelStream() : all.stream());
+
+        String className = query.getClassName();
+        if (className != null && classes.size(className) < cheapest) {
+            cheapest = classes.size(className);
+            if (query.getOrder() == StudentQuery.Order.REPORT) {
+                ClassRanking ranking = classes.ranking(className);
+                plan = new QueryPlan(query, Source.CLASS_RANKING,
+                        String.format("class ranking %s (%,d students)", className, cheapest),
+                        () -> deferred(() -> ranking.first(query::matches, query.getLimit())));
+            } else {
+                List<Student> members = classes.get(className);
+                plan = new QueryPlan(query, Source.CLASS_INDEX,
+                        String.format("class index %s (%,d students)", className, cheapest), members::stream);
+            }
+        }
+
+        for (StudentQuery.SubjectCondition condition : query.getSubjectConditions()) {
+            StatusIndex.Outcome outcome = condition.indexedOutcome();
+            if (outcome == null) {
+                continue;
+            }
+            long size = 0;
+            if (condition.subject >= 0) {
+                size = statuses.size(condition.subject, outcome);
+            } else {
+                for (int i = 0; i < App.SUBJECTS.length; i++) {
+                    size += statuses.size(i, outcome);
+                }
+            }
+            if (size < cheapest) {
+                cheapest = size;
+                plan = new QueryPlan(query, Source.STATUS_INDEX,
+                        String.format("status index %s (%,d students)",
+                                (condition.subject >= 0 ? App.SUBJECTS[condition.subject] : "any subject")
+                                        + " " + outcome, size),
+                        () -> indexed(statuses, condition.subject, outcome));
+            }
+        }
+
+        if (plan.source == Source.SCAN && query.getOrder() == StudentQuery.Order.REPORT && query.hasLimit()) {
+            Collection<ClassRanking> rankings = classes.rankings();
+            plan = new QueryPlan(query, Source.RANKING_MERGE,
+                    String.format("ranking merge (%d classes)", rankings.size()),
+                    () -> deferred(() -> {
+                        List<Student> firsts = new ArrayList<>();
+                        for (ClassRanking ranking : rankings) {
+                            firsts.addAll(ranking.first(query::matches, query.getLimit()));
+                        }
+                        return firsts.stream().collect(best(query.getLimit(), ClassRanking.REPORT_ORDER));
+                    }));
+        }
+        return plan;
+    }
+
+    /**
+     * Students with the outcome in the subject, or in any subject when
+     * subject is -1. A student with the outcome in several subjects is
+     * yielded only from the first of them.
+     */
+    private static Stream<Student> indexed(StatusIndex statuses, int subject, StatusIndex.Outcome outcome) {
+        if (subject >= 0) {
+            return statuses.get(subject, outcome).stream();
+        }
+        return IntStream.range(0, App.SUBJECTS.length).boxed()
+                .flatMap(i -> statuses.get(i, outcome).stream()
+                        .filter(student -> firstSubjectWith(student, outcome) == i));
+    }
+
+    private static int firstSubjectWith(Student student, StatusIndex.Outcome outcome) {
+        Map<String, Grade> grades = student.getSubjectGrades();
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            if (StatusIndex.outcome(grades.get(App.SUBJECTS[i])) == outcome) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return A stream that builds its rows only when it is consumed.
+     */
+    private static Stream<Student> deferred(Supplier<List<Student>> rows) {
+        return Stream.of(rows).flatMap(supplier -> supplier.get().stream());
+    }
+
+    /**
+     * Runs the plan. Nothing is read until the stream is consumed.
+     *
+     * @return The matching students, in the query's order, at most its limit.
+     */
+    public Stream<Student> execute() {
+        Stream<Student> rows = candidates.get();
+        if (source == Source.CLASS_RANKING || source == Source.RANKING_MERGE) {
+            return rows; // Already filtered, ordered and limited.
+        }
+        rows = rows.filter(query::matches);
+        Comparator<Student> order = query.comparator();
+        if (order == null) {
+            return query.hasLimit() ? rows.limit(query.getLimit()) : rows;
+        }
+        Stream<Student> matches = rows;
+        return deferred(() -> matches.collect(best(query.getLimit(), order)));
+    }
+
+    /**
+     * Collects the first k students in the given order with a bounded heap:
+     * O(n log k), and per-thread heaps merge when the stream is parallel.
+     */
+    static Collector<Student, ?, List<Student>> best(int k, Comparator<Student> order) {
+        return Collector.of(
+                () -> new PriorityQueue<Student>(Math.min(k, 1024) + 1, order.reversed()),
+                (heap, student) -> offer(heap, student, k, order),
+                (heap, other) -> {
+                    for (Student student : other) {
+                        offer(heap, student, k, order);
+                    }
+                    return heap;
+                },
+                heap -> {
+                    Student[] sorted = new Student[heap.size()];
+                    for (int i = sorted.length - 1; i >= 0; i--) {
+                        sorted[i] = heap.poll();
+                    }
+                    return List.of(sorted);
+                });
+    }
+
+    private static void offer(PriorityQueue<Student> heap, Student student, int k, Comparator<Student> order) {
+        if (heap.size() < k) {
+            heap.add(student);
+        } else if (k > 0 && order.compare(student, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(student);
+        }
+    }
+
+    // Getters
+    Source getSource() {
+        return source;
+    }
+
+    /**
+     * @return The chosen source and what is done with its candidates, e.g.
+     *         "status index Maths Failed (1,204 students), filter, best 10 by SCORE".
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(sourceDescription);
+        if (source == Source.CLASS_RANKING || source == Source.RANKING_MERGE) {
+            sb.append(", filter in report order");
+            if (query.hasLimit()) {
+                sb.append(", stop at ").append(query.getLimit());
+            }
+            return sb.toString();
+        }
+        sb.append(", filter");
+        if (query.getOrder() == StudentQuery.Order.NONE) {
+            if (query.hasLimit()) {
+                sb.append(", stop at ").append(query.getLimit());
+            }
+        } else if (query.hasLimit()) {
+            sb.append(", best ").append(query.getLimit()).append(" by ").append(query.getOrder());
+        } else {
+            sb.append(", sort by ").append(query.getOrder());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,359 @@
+import com.google.gson.stream.JsonWriter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders class summary reports for batch output, without ANSI escapes.
+ * TEXT mirrors the console table; CSV writes the ranked rows followed by a
+ * per-subject statistics table and the overall counts; JSON has the layout
+ * of GradeServer's class report, plus the student's rank on every row.
+ *
+ * Reports are streamed: statistics are gathered while the rows are written
+ * and only printed after them, so a report never needs all of its rows at
+ * once. Text and CSV rows are built in one reused StringBuilder and
+ * appended cell by cell, so rendering a row allocates no Strings. A
+ * renderer is not thread-safe; use one per thread.
+ */
+public class ReportRenderer {
+    public enum Format {
+        TEXT, CSV, JSON;
+
+        public String extension() {
+            switch (this) {
+                case CSV:
+                    return ".csv";
+                case JSON:
+                    return ".json";
+                default:
+                    return ".txt";
+            }
+        }
+    }
+
+    private static final String LINE = "---------------------------------------------------------------------------------------------------------------------------------";
+    private static final String DOUBLE_LINE = LINE.replace('-', '=');
+    private static final GradeTypeAdapter GRADE_ADAPTER = new GradeTypeAdapter();
+    private static final int[] ROW_WIDTHS = { 5, 8, 25, 11, 11, 11, 11, 10, 11 };
+
+    private final Format format;
+    private final TrackerMetrics metrics;
+    private final StringBuilder buf = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private long charsWritten;
+
+    public ReportRenderer(Format format) {
+        this(format, TrackerMetrics.disabled());
+    }
+
+    /**
+     * @param format  The output layout.
+     * @param metrics Where render times and output sizes are recorded.
+     */
+    public ReportRenderer(Format format, TrackerMetrics metrics) {
+        this.format = format;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Writes one class report.
+     *
+     * @param className The class the report is for.
+     * @param students  The students in report order; iterated once.
+     * @param out       Destination; buffered by the caller, and left open.
+     */
+    public void render(String className, Iterable<Student> students, Writer out) throws IOException {
+        long start = metrics.start();
+        charsWritten = 0;
+        ClassStatistics stats = new ClassStatistics();
+        switch (format) {
+            case CSV:
+                renderCsv(students, stats, out);
+                break;
+            case JSON:
+                renderJson(className, students, stats, out);
+                break;
+            default:
+                renderText(className, students, stats, out);
+        }
+        metrics.addBytesWritten(charsWritten);
+        metrics.record(TrackerMetrics.Operation.RENDER_REPORT, start, charsWritten);
+    }
+
+    private void renderText(String className, Iterable<Student> students, ClassStatistics stats, Writer out)
+            throws IOException {
+        writeLine(out, DOUBLE_LINE);
+        writeLine(out, "                                Class Summary Report for: " + className);
+        writeLine(out, DOUBLE_LINE);
+        buf.setLength(0);
+        String[] headers = { "Rank", "ID", "Name", "Maths", "English", "Science", "Social", "Total", "Remark" };
+        for (int i = 0; i < headers.length; i++) {
+            cell(i, headers[i]);
+        }
+        flushLine(out);
+        writeLine(out, LINE);
+
+        Iterator<Student> rows = students.iterator();
+        if (!rows.hasNext()) {
+            writeLine(out, "No students found in this class.");
+        } else {
+            int rank = 1;
+            while (rows.hasNext()) {
+                Student s = rows.next();
+                stats.accept(s);
+                buf.setLength(0);
+                int start = buf.length();
+                buf.append(rank++);
+                pad(start, ROW_WIDTHS[0]);
+                cell(1, s.getStudentId());
+                cell(2, s.getName());
+                for (int i = 0; i < App.SUBJECTS.length; i++) {
+                    buf.append(" | ");
+                    start = buf.length();
+                    s.getSubjectGrades().get(App.SUBJECTS[i]).appendTo(buf);
+                    pad(start, ROW_WIDTHS[3 + i]);
+                }
+                buf.append(" | ");
+                start = buf.length();
+                buf.append(s.getTotalMarks());
+                pad(start, ROW_WIDTHS[7]);
+                cell(8, s.getRemark());
+                flushLine(out);
+            }
+            renderTextFooter(stats, out);
+        }
+        writeLine(out, LINE);
+    }
+
+    private void renderTextFooter(ClassStatistics stats, Writer out) throws IOException {
+        writeLine(out, LINE);
+        writeLine(out, "Subject Performance Summary:");
+        writeLine(out, String.format("%-10s | %-30s | %-30s | %-10s", "Subject", "Highest Scorer", "Lowest Scorer",
+                "Average"));
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            String highestStr = "N/A";
+            String lowestStr = "N/A";
+            String avgStr = "N/A";
+            if (subject.getGradedCount() > 0) {
+                avgStr = String.format("%.2f", subject.getAverage());
+                highestStr = String.format("%.1f (%s)", subject.getHighest(), subject.getHighestScorer().getName());
+                lowestStr = String.format("%.1f (%s)", subject.getLowest(), subject.getLowestScorer().getName());
+            }
+            writeLine(out, String.format("%-10s | %-30s | %-30s | %-10s", App.SUBJECTS[i], highestStr, lowestStr,
+                    avgStr));
+        }
+        writeLine(out, "");
+
+        writeLine(out, "Subject Distribution Summary:");
+        writeLine(out, String.format("%-10s | %-15s | %-15s | %-15s | %-15s", "Subject", "Passed (>=25)",
+                "Failed (<25)", "Absent", "Malpractice"));
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            writeLine(out, String.format("%-10s | %-15d | %-15d | %-15d | %-15d", App.SUBJECTS[i],
+                    subject.getPassed(), subject.getFailed(), subject.getAbsent(), subject.getMalpractice()));
+        }
+        writeLine(out, "");
+
+        writeLine(out, "Overall Class Summary:");
+        writeLine(out, String.format("Total Students: %-5d | Passed: %-5d | Failed: %-5d | Malpractice: %-5d",
+                stats.getStudentCount(), stats.getPassedCount(), stats.getFailedCount(),
+                stats.getMalpracticeCount()));
+    }
+
+    private void renderCsv(Iterable<Student> students, ClassStatistics stats, Writer out) throws IOException {
+        writeLine(out, "Rank,ID,Name,Maths,English,Science,Social,Total,Remark");
+        int rank = 1;
+        for (Student s : students) {
+            stats.accept(s);
+            buf.setLength(0);
+            buf.append(rank++).append(',');
+            csv(s.getStudentId()).append(',');
+            csv(s.getName()).append(',');
+            for (String subject : App.SUBJECTS) {
+                s.getSubjectGrades().get(subject).appendTo(buf).append(',');
+            }
+            buf.append(s.getTotalMarks()).append(',').append(s.getRemark());
+            flushLine(out);
+        }
+
+        writeLine(out, "");
+        writeLine(out, "Subject,Highest,Highest Scorer,Lowest,Lowest Scorer,Average,Passed,Failed,Absent,Malpractice");
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            buf.setLength(0);
+            buf.append(App.SUBJECTS[i]).append(',');
+            if (subject.getGradedCount() > 0) {
+                buf.append(subject.getHighest()).append(',');
+                csv(subject.getHighestScorer().getName()).append(',');
+                buf.append(subject.getLowest()).append(',');
+                csv(subject.getLowestScorer().getName()).append(',');
+                buf.append(String.format(Locale.ROOT, "%.2f", subject.getAverage())).append(',');
+            } else {
+                buf.append(",,,,,");
+            }
+            buf.append(subject.getPassed()).append(',').append(subject.getFailed()).append(',')
+                    .append(subject.getAbsent()).append(',').append(subject.getMalpractice());
+            flushLine(out);
+        }
+
+        writeLine(out, "");
+        writeLine(out, "Total Students,Passed,Failed,Malpractice");
+        buf.setLength(0);
+        buf.append(stats.getStudentCount()).append(',').append(stats.getPassedCount()).append(',')
+                .append(stats.getFailedCount()).append(',').append(stats.getMalpracticeCount());
+        flushLine(out);
+    }
+
+    private void renderJson(String className, Iterable<Student> students, ClassStatistics stats, Writer out)
+            throws IOException {
+        CountingWriter counter = new CountingWriter(out);
+        JsonWriter json = new JsonWriter(counter);
+        json.beginObject();
+        json.name("className").value(className);
+        json.name("students").beginArray();
+        int rank = 1;
+        for (Student s : students) {
+            stats.accept(s);
+            json.beginObject();
+            json.name("studentId").value(s.getStudentId());
+            json.name("name").value(s.getName());
+            json.name("studentClass").value(s.getStudentClass());
+            json.name("subjectGrades").beginObject();
+            for (Map.Entry<String, Grade> entry : s.getSubjectGrades().entrySet()) {
+                json.name(entry.getKey());
+                GRADE_ADAPTER.write(json, entry.getValue());
+            }
+            json.endObject();
+            json.name("totalMarks").value(s.getTotalMarks());
+            json.name("remark").value(s.getRemark());
+            json.name("rank").value(rank++);
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("summary").beginObject();
+        json.name("totalStudents").value(stats.getStudentCount());
+        json.name("passed").value(stats.getPassedCount());
+        json.name("failed").value(stats.getFailedCount());
+        json.name("malpractice").value(stats.getMalpracticeCount());
+        json.name("subjects").beginObject();
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            ClassStatistics.SubjectStats subject = stats.getSubject(i);
+            json.name(App.SUBJECTS[i]).beginObject();
+            if (subject.getGradedCount() > 0) {
+                json.name("average").value(subject.getAverage());
+                json.name("highest").value(subject.getHighest());
+                json.name("highestScorer").value(subject.getHighestScorer().getName());
+                json.name("lowest").value(subject.getLowest());
+                json.name("lowestScorer").value(subject.getLowestScorer().getName());
+            }
+            json.name("passed").value(subject.getPassed());
+            json.name("failed").value(subject.getFailed());
+            json.name("absent").value(subject.getAbsent());
+            json.name("malpractice").value(subject.getMalpractice());
+            json.endObject();
+        }
+        json.endObject();
+        json.endObject();
+        json.endObject();
+        // Flushed, not closed: closing the JsonWriter would close the caller's writer.
+        json.flush();
+        counter.write(System.lineSeparator());
+        charsWritten = counter.count;
+    }
+
+    /**
+     * Counts the characters passed through, for the bytes-written metric.
+     */
+    private static final class CountingWriter extends FilterWriter {
+        long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.write(chars, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            out.write(text, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+            // The caller flushes the underlying writer when it is done with it.
+        }
+    }
+
+    /**
+     * Appends a " | "-separated, left-justified cell, like "%-Ns" in the console table.
+     */
+    private void cell(int column, String value) {
+        if (column > 0) {
+            buf.append(" | ");
+        }
+        int start = buf.length();
+        buf.append(value);
+        pad(start, ROW_WIDTHS[column]);
+    }
+
+    private void pad(int start, int width) {
+        for (int i = buf.length() - start; i < width; i++) {
+            buf.append(' ');
+        }
+    }
+
+    private StringBuilder csv(String value) {
+        if (value == null) {
+            return buf;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return buf.append(value);
+        }
+        buf.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buf.append('"');
+            }
+            buf.append(c);
+        }
+        return buf.append('"');
+    }
+
+    /**
+     * Writes the buffer as one line through a reused char array, so no String is created.
+     */
+    private void flushLine(Writer out) throws IOException {
+        buf.append(System.lineSeparator());
+        int length = buf.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        buf.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+        charsWritten += length;
+    }
+
+    private void writeLine(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write(System.lineSeparator());
+        charsWritten += text.length() + System.lineSeparator().length();
+    }
+}
@@ -0,0 +1,257 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Data directory with one JSON shard per class and a small manifest, so a
+ * save rewrites only the classes that changed and a load reads the shards
+ * in parallel.
+ *
+ * Layout of a ".shards" directory:
+ *   manifest.json   {"version":1,"nextId":N,"classNames":[...],"shards":{"first year":"first_year.json"}}
+ *   first_year.json {"students":{...}} in the students.json format
+ *
+ * Shards are keyed by the lower-case class name, matching ClassIndex. Each
+ * shard and then the manifest are replaced atomically; the journal covers
+ * a crash between the two.
+ */
+public class ShardedStore {
+    /** Data paths ending in this are sharded directories. */
+    public static final String EXTENSION = ".shards";
+    public static final String MANIFEST_FILE = "manifest.json";
+    private static final int VERSION = 1;
+
+    private final Path directory;
+    private final Gson gson;
+    // Shard key to file name, as listed in the manifest plus shards written since.
+    private final Map<String, String> shardFiles = new ConcurrentHashMap<>();
+    private int nextId = 1;
+
+    /**
+     * @param directory The ".shards" directory; created on the first write.
+     * @param gson      Gson with the Student type adapter registered.
+     */
+    public ShardedStore(Path directory, Gson gson) {
+        this.directory = directory;
+        this.gson = gson;
+    }
+
+    public static boolean usesShardedFormat(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * @param className The class name, in any case.
+     * @return The key of the shard holding the class's students.
+     */
+    public static String shardKey(String className) {
+        return className == null ? "" : className.toLowerCase(Locale.ROOT);
+    }
+
+    public boolean exists() {
+        return Files.exists(directory.resolve(MANIFEST_FILE));
+    }
+
+    /**
+     * Reads the manifest, then every shard in parallel into the given maps.
+     *
+     * @param students   Receives the students; must be safe for concurrent puts.
+     * @param classNames Receives the class names; must be safe for concurrent adds.
+     * @param gradeStore Columnar store for the loaded grades, or null.
+     * @return The number of bytes read.
+     * @throws IOException If the manifest or a shard cannot be read.
+     */
+    public long load(Map<String, Student> students, Set<String> classNames, GradeStore gradeStore)
+            throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        JsonObject manifest;
+        try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            manifest = JsonParser.parseReader(reader).getAsJsonObject();
+        }
+        if (manifest.has("nextId")) {
+            nextId = manifest.get("nextId").getAsInt();
+        }
+        if (manifest.has("classNames")) {
+            for (JsonElement name : manifest.getAsJsonArray("classNames")) {
+                classNames.add(name.getAsString());
+            }
+        }
+        if (manifest.has("shards")) {
+            for (Map.Entry<String, JsonElement> entry : manifest.getAsJsonObject("shards").entrySet()) {
+                shardFiles.put(entry.getKey(), entry.getValue().getAsString());
+            }
+        }
+
+        long bytes = Files.size(manifestFile);
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (String fileName : shardFiles.values()) {
+            Path shard = directory.resolve(fileName);
+            tasks.add(() -> {
+                try (Reader reader = Files.newBufferedReader(shard, StandardCharsets.UTF_8)) {
+                    new StudentDataLoader(gradeStore, students, classNames).load(reader);
+                }
+                return Files.size(shard);
+            });
+        }
+        for (long shardBytes : runAll(tasks)) {
+            bytes += shardBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Rewrites the given shards, then the manifest.
+     *
+     * @param shardKeys  Keys of the shards to rewrite; other shards are left as they are.
+     * @param members    The students of a shard, by shard key.
+     * @param classNames Every class name, for the manifest.
+     * @param nextId     The next student number, for the manifest.
+     * @return The number of bytes written.
+     * @throws IOException If a shard or the manifest cannot be written.
+     */
+    public long write(Collection<String> shardKeys, Function<String, List<Student>> members,
+            Collection<String> classNames, int nextId) throws IOException {
+        Files.createDirectories(directory);
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (String key : shardKeys) {
+            String fileName = shardFiles.computeIfAbsent(key, this::newFileName);
+            tasks.add(() -> writeShard(directory.resolve(fileName), members.apply(key)));
+        }
+        long bytes = 0;
+        for (long shardBytes : runAll(tasks)) {
+            bytes += shardBytes;
+        }
+        this.nextId = nextId;
+        return bytes + writeManifest(classNames);
+    }
+
+    private String newFileName(String key) {
+        String base = key.isEmpty() ? "no_class" : key.replaceAll("[^A-Za-z0-9._-]+", "_");
+        Set<String> taken = new HashSet<>(shardFiles.values());
+        taken.add(MANIFEST_FILE);
+        String fileName = base + ".json";
+        for (int n = 2; taken.contains(fileName); n++) {
+            fileName = base + "-" + n + ".json";
+        }
+        return fileName;
+    }
+
+    private long writeShard(Path shard, List<Student> students) throws IOException {
+        TypeAdapter<Student> adapter = gson.getAdapter(Student.class);
+        Path temp = shard.resolveSibling(shard.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                JsonWriter out = gson.newJsonWriter(writer)) {
+            out.beginObject();
+            out.name("students").beginObject();
+            for (Student student : students) {
+                out.name(student.getStudentId());
+                adapter.write(out, student);
+            }
+            out.endObject();
+            out.endObject();
+        }
+        return moveIntoPlace(temp, shard);
+    }
+
+    private long writeManifest(Collection<String> classNames) throws IOException {
+        JsonObject manifest = new JsonObject();
+        manifest.addProperty("version", VERSION);
+        manifest.addProperty("nextId", nextId);
+        JsonArray names = new JsonArray();
+        for (String className : classNames) {
+            names.add(className);
+        }
+        manifest.add("classNames", names);
+        JsonObject shards = new JsonObject();
+        for (Map.Entry<String, String> entry : shardFiles.entrySet()) {
+            shards.addProperty(entry.getKey(), entry.getValue());
+        }
+        manifest.add("shards", shards);
+
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path temp = target.resolveSibling(MANIFEST_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(manifest, writer);
+        }
+        return moveIntoPlace(temp, target);
+    }
+
+    private static long moveIntoPlace(Path temp, Path target) throws IOException {
+        long bytes = Files.size(temp);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    /**
+     * Runs the tasks on up to one thread per core.
+     *
+     * @return Each task's result.
+     */
+    private static List<Long> runAll(List<Callable<Long>> tasks) throws IOException {
+        List<Long> results = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(tasks.size(),
+                Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (Callable<Long> task : tasks) {
+                futures.add(pool.submit(task));
+            }
+            for (Future<Long> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading or writing shards", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    // Getters
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The next student number from the manifest, or 1 before anything was loaded.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    public int getShardCount() {
+        return shardFiles.size();
+    }
+}
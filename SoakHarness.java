@@ -0,0 +1,360 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Long-running mixed workload against one in-process GradeTracker, loaded
+ * from a dataset written by DatasetGenerator. Worker threads run, per
+ * 1,000 operations: 700 student lookups, 240 grade updates, 30 new
+ * students, 29 saves and 1 full class report, until the time is up.
+ *
+ * Every interval it prints throughput, heap in use and GC time so far, so
+ * slow leaks and growing pauses show up during the run. At the end it
+ * prints throughput and latency percentiles per operation, GC pause
+ * percentiles, the peak heap (the largest heap seen at the start of a
+ * collection) and the live heap after the run compared with after loading.
+ *
+ * Usage: java -Xmx2g -cp .:gson-2.10.1.jar SoakHarness [--students n] [--classes n]
+ *        [--seconds n] [--threads n] [--interval seconds] [--absent pct]
+ *        [--malpractice pct] [--format json|bin|shards]
+ * Data is written to a temporary directory that is deleted afterwards.
+ */
+public class SoakHarness {
+    private enum Kind {
+        LOOKUP("Lookup"), GRADE("Grade"), ADD("Add"), SAVE("Save"), REPORT("Report");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private final GradeTracker tracker;
+    private final List<String> classNames;
+    private final AtomicInteger maxNumber;
+    private final TrackerMetrics.Histogram[] latencies = new TrackerMetrics.Histogram[Kind.values().length];
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    private SoakHarness(GradeTracker tracker, int students) {
+        this.tracker = tracker;
+        this.classNames = new ArrayList<>(tracker.getClassNames());
+        this.maxNumber = new AtomicInteger(students);
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new TrackerMetrics.Histogram();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String usage = "Usage: SoakHarness [--students n] [--classes n] [--seconds n] [--threads n] "
+                + "[--interval seconds] [--absent pct] [--malpractice pct] [--format json|bin|shards]";
+        int students = 100_000;
+        int seconds = 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int interval = 10;
+        String format = "shards";
+        DatasetGenerator.Profile profile = new DatasetGenerator.Profile();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--students":
+                        students = Integer.parseInt(args[++i]);
+                        break;
+                    case "--classes":
+                        profile.classes(Integer.parseInt(args[++i]));
+                        break;
+                    case "--seconds":
+                        seconds = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--interval":
+                        interval = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--absent":
+                        profile.absentRate(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    case "--malpractice":
+                        profile.malpracticeRate(Double.parseDouble(args[++i]) / 100);
+                        break;
+                    case "--format":
+                        format = args[++i];
+                        if (!Set.of("json", "bin", "shards").contains(format)) {
+                            throw new IllegalArgumentException(format);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+
+        Path dir = Files.createTempDirectory("tracker-soak");
+        try {
+            Path dataFile = dir.resolve("students." + format);
+            long start = System.nanoTime();
+            DatasetGenerator.generate(dataFile, students, DatasetGenerator.DEFAULT_SEED, profile);
+            System.out.printf("Generated %,d students in %d classes (%s) in %.1f s%n", students,
+                    profile.getClasses(), format, seconds(System.nanoTime() - start));
+
+            GcMonitor gc = new GcMonitor();
+            start = System.nanoTime();
+            try (GradeTracker tracker = new GradeTracker(dataFile.toString())) {
+                tracker.getStudentsByClass(profile.className(0)); // Decodes a lazily loaded binary file.
+                long loaded = System.nanoTime() - start;
+                long liveAfterLoad = liveHeap();
+                System.out.printf("Loaded in %.1f s | Live heap %,d MB | Threads: %d | Duration: %ds%n",
+                        seconds(loaded), liveAfterLoad >> 20, threads, seconds);
+
+                SoakHarness harness = new SoakHarness(tracker, students);
+                gc.reset();
+                long elapsed = harness.run(threads, seconds, interval, gc);
+                harness.print(elapsed, gc);
+                int mismatches = tracker.verifyDerivedState();
+                long liveAfterRun = liveHeap();
+                System.out.printf("Live heap: %,d MB after load, %,d MB after run (%+,d MB)%n",
+                        liveAfterLoad >> 20, liveAfterRun >> 20, (liveAfterRun - liveAfterLoad) >> 20);
+                TrackerMetrics.Histogram compactions = tracker.getMetrics()
+                        .getHistogram(TrackerMetrics.Operation.COMPACT);
+                System.out.printf("Background compactions: %d, max %.0f ms%n", compactions.getCount(),
+                        compactions.getMaxMillis());
+                System.out.printf("Students: %,d | Cached totals: %s%n", tracker.getStudentCount(),
+                        mismatches == 0 ? "OK" : "FAILED: " + mismatches + " mismatches");
+                start = System.nanoTime();
+            }
+            System.out.printf("Close: %.1f s%n", seconds(System.nanoTime() - start));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * @return The run time in nanoseconds.
+     */
+    private long run(int threadCount, int seconds, int interval, GcMonitor gc) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread worker = new Thread(() -> work(deadline), "soak-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        System.out.printf("%-8s | %12s | %10s | %12s | %s%n", "Elapsed", "Ops/sec", "Heap (MB)", "GC pause (ms)",
+                "Errors");
+        long lastOps = 0;
+        long lastTime = start;
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(Math.min(interval * 1000L,
+                    Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+            long now = System.nanoTime();
+            long ops = operations.sum();
+            System.out.printf("%7.0fs | %,12.0f | %,10d | %,13.0f | %d%n", seconds(now - start),
+                    (ops - lastOps) / seconds(now - lastTime), usedHeap() >> 20, gc.getTotalPauseMillis(),
+                    errors.sum());
+            lastOps = ops;
+            lastTime = now;
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void work(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ReportRenderer renderer = new ReportRenderer(ReportRenderer.Format.TEXT, TrackerMetrics.disabled());
+        Writer discard = Writer.nullWriter();
+        Map<String, Grade> grades = new HashMap<>();
+        while (System.nanoTime() < deadline) {
+            int dice = random.nextInt(1000);
+            Kind kind = dice < 700 ? Kind.LOOKUP : dice < 940 ? Kind.GRADE : dice < 970 ? Kind.ADD
+                    : dice < 999 ? Kind.SAVE : Kind.REPORT;
+            String className = classNames.get(random.nextInt(classNames.size()));
+            long start = System.nanoTime();
+            try {
+                switch (kind) {
+                    case LOOKUP:
+                        tracker.findStudentById(randomId(random));
+                        break;
+                    case GRADE:
+                        tracker.findStudentById(randomId(random)).ifPresent(student -> {
+                            grades.clear();
+                            grades.put(App.SUBJECTS[random.nextInt(App.SUBJECTS.length)], randomGrade(random));
+                            if (random.nextBoolean()) {
+                                grades.put(App.SUBJECTS[random.nextInt(App.SUBJECTS.length)], randomGrade(random));
+                            }
+                            student.addSubjectGrades(grades);
+                        });
+                        break;
+                    case ADD:
+                        Student student = tracker.addStudent("Soak Student", className);
+                        for (String subject : App.SUBJECTS) {
+                            student.addSubjectGrade(subject, randomGrade(random));
+                        }
+                        maxNumber.accumulateAndGet(Integer.parseInt(student.getStudentId().substring(1)), Math::max);
+                        break;
+                    case SAVE:
+                        tracker.saveStudents();
+                        break;
+                    default:
+                        renderer.render(className, tracker.getClassReportRows(className), discard);
+                }
+                latencies[kind.ordinal()].record(System.nanoTime() - start);
+            } catch (Exception | AssertionError e) {
+                errors.increment();
+                firstError.compareAndSet(null, e);
+            }
+            operations.increment();
+        }
+    }
+
+    private String randomId(ThreadLocalRandom random) {
+        return "S" + (1 + random.nextInt(maxNumber.get()));
+    }
+
+    private static Grade randomGrade(ThreadLocalRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 3) {
+            return Grade.ABSENT;
+        }
+        if (roll < 4) {
+            return Grade.MALPRACTICE;
+        }
+        return Grade.graded(random.nextInt(101));
+    }
+
+    private void print(long elapsedNanos, GcMonitor gc) {
+        double seconds = seconds(elapsedNanos);
+        System.out.printf("%-8s | %10s | %12s | %10s | %10s | %10s | %10s%n", "Op", "Count", "Ops/sec",
+                "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "Max (ms)");
+        for (Kind kind : Kind.values()) {
+            printRow(kind.label, latencies[kind.ordinal()], seconds);
+        }
+        System.out.printf("Total: %,d ops, %,.0f ops/sec | Errors: %d%n", operations.sum(),
+                operations.sum() / seconds, errors.sum());
+        if (firstError.get() != null) {
+            System.out.println("First error: " + firstError.get());
+        }
+        printRow("GC pause", gc.getPauses(), seconds);
+        System.out.printf("GC: %.0f ms paused (%.2f%% of the run) | Peak heap %,d MB%n", gc.getTotalPauseMillis(),
+                gc.getTotalPauseMillis() / 10 / seconds, Math.max(gc.getPeakHeap(), usedHeap()) >> 20);
+    }
+
+    private static void printRow(String label, TrackerMetrics.Histogram histogram, double seconds) {
+        System.out.printf("%-8s | %10d | %,12.0f | %10.2f | %10.2f | %10.2f | %10.2f%n", label, histogram.getCount(),
+                histogram.getCount() / seconds, histogram.getPercentileMillis(50),
+                histogram.getPercentileMillis(99), histogram.getPercentileMillis(99.9), histogram.getMaxMillis());
+    }
+
+    /**
+     * Collects stop-the-world pauses from the collectors' notifications.
+     * Concurrent cycles, reported by beans named "... Cycles" (ZGC,
+     * Shenandoah), do not stop the application and are left out.
+     */
+    private static final class GcMonitor implements NotificationListener {
+        private final Set<String> heapPools = new HashSet<>();
+        private volatile TrackerMetrics.Histogram pauses = new TrackerMetrics.Histogram();
+        private final AtomicLong peakHeap = new AtomicLong();
+
+        GcMonitor() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool.getName());
+                }
+            }
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter && !bean.getName().endsWith("Cycles")) {
+                    ((NotificationEmitter) bean).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData());
+            pauses.record(info.getGcInfo().getDuration() * 1_000_000);
+            long before = 0;
+            for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    before += pool.getValue().getUsed();
+                }
+            }
+            peakHeap.accumulateAndGet(before, Math::max);
+        }
+
+        void reset() {
+            pauses = new TrackerMetrics.Histogram();
+            peakHeap.set(0);
+        }
+
+        // Getters
+        TrackerMetrics.Histogram getPauses() {
+            return pauses;
+        }
+
+        double getTotalPauseMillis() {
+            return pauses.getMeanMillis() * pauses.getCount();
+        }
+
+        long getPeakHeap() {
+            return peakHeap.get();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static long liveHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return usedHeap();
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index from (subject, outcome) to the students with that
+ * outcome. The outcomes are the grade statuses other than "Graded", plus
+ * FAILED for graded scores below the subject pass mark. Passing grades,
+ * by far the most common, are not indexed, so the index holds only the
+ * few students each question about absences or failures is after.
+ *
+ * Safe for concurrent use. Sets are weakly consistent while grades change.
+ */
+public class StatusIndex {
+    public enum Outcome {
+        NOT_GRADED(Grade.Status.NOT_GRADED.getLabel()),
+        ABSENT(Grade.Status.ABSENT.getLabel()),
+        MALPRACTICE(Grade.Status.MALPRACTICE.getLabel()),
+        /** A graded score below ClassStatistics.SUBJECT_PASS_MARK. */
+        FAILED("Failed");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return The outcome for a status other than "Graded".
+         */
+        static Outcome of(Grade.Status status) {
+            switch (status) {
+                case NOT_GRADED:
+                    return NOT_GRADED;
+                case ABSENT:
+                    return ABSENT;
+                case MALPRACTICE:
+                    return MALPRACTICE;
+                default:
+                    throw new IllegalArgumentException("Graded scores are indexed by whether they failed.");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final Set<Student>[][] bySubject;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StatusIndex() {
+        bySubject = new Set[App.SUBJECTS.length][OUTCOMES.length];
+        for (Set<Student>[] outcomes : bySubject) {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = ConcurrentHashMap.newKeySet();
+            }
+        }
+    }
+
+    /**
+     * @return The indexed outcome of a grade, or null for a passing or missing grade.
+     */
+    public static Outcome outcome(Grade grade) {
+        if (grade == null) {
+            return null;
+        }
+        if (!grade.isGraded()) {
+            return Outcome.of(grade.getStatus());
+        }
+        return grade.getScore() < ClassStatistics.SUBJECT_PASS_MARK ? Outcome.FAILED : null;
+    }
+
+    /**
+     * Indexes every subject of a newly loaded student.
+     */
+    public void add(Student student) {
+        Map<String, Grade> grades = student.getSubjectGrades();
+        for (int i = 0; i < bySubject.length; i++) {
+            Outcome outcome = outcome(grades.get(App.SUBJECTS[i]));
+            if (outcome != null) {
+                bySubject[i][outcome.ordinal()].add(student);
+            }
+        }
+    }
+
+    /**
+     * Applies one grade change.
+     *
+     * @param subject Subjects outside App.SUBJECTS are ignored.
+     */
+    public void update(Student student, String subject, Grade oldGrade, Grade newGrade) {
+        int ordinal = ordinal(subject);
+        if (ordinal < 0) {
+            return;
+        }
+        Outcome before = outcome(oldGrade);
+        Outcome after = outcome(newGrade);
+        if (before != null && before != after) {
+            bySubject[ordinal][before.ordinal()].remove(student);
+        }
+        if (after != null) {
+            bySubject[ordinal][after.ordinal()].add(student);
+        }
+    }
+
+    /**
+     * @param subject Index into App.SUBJECTS.
+     * @return A read-only live view of the students with that outcome.
+     */
+    public Set<Student> get(int subject, Outcome outcome) {
+        return Collections.unmodifiableSet(bySubject[subject][outcome.ordinal()]);
+    }
+
+    public int size(int subject, Outcome outcome) {
+        return bySubject[subject][outcome.ordinal()].size();
+    }
+
+    public void clear() {
+        for (Set<Student>[] outcomes : bySubject) {
+            for (Set<Student> students : outcomes) {
+                students.clear();
+            }
+        }
+    }
+
+    private static int ordinal(String subject) {
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            if (App.SUBJECTS[i].equals(subject)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -4,24 +4,49 @@ import java.util.Map;
 /**
  * Updated Data Model for a single student.
  * Now uses the Grade class to store detailed grade information.
+ *
+ * Grade changes and snapshot() are synchronized on the student, so several
+ * clerks can update the same student safely. Readers that need a consistent
+ * view from another thread should work on a snapshot().
  */
 public class Student {
     private String studentId;
     private String name;
     private String studentClass;
-    private Map<String, Grade> subjectGrades;
+    private Map<String, Grade> subjectGrades; // null when grades live in a GradeStore
+    private transient GradeStore gradeStore;
+    private transient int gradeSlot;
+    private transient GradeListener listener;
+    // Derived from the grades and refreshed on every addSubjectGrade, so reads are field loads.
+    private transient double totalMarks;
+    private transient double mathsAndScienceTotal;
+    private transient boolean malpractice;
 
     public Student(String studentId, String name, String studentClass) {
         this.studentId = studentId;
         this.name = name;
         this.studentClass = studentClass;
         this.subjectGrades = new HashMap<>();
-        // Initialize subjects with a placeholder Grade object
+        // Every subject starts with the shared "Not Graded" grade
         for (String subject : App.SUBJECTS) {
-            this.subjectGrades.put(subject, new Grade(-1, "Not Graded"));
+            this.subjectGrades.put(subject, Grade.NOT_GRADED);
         }
     }
 
+    /**
+     * Creates a student whose grades live in a shared columnar store
+     * instead of a per-student map. New slots start as "Not Graded".
+     *
+     * @param store The store that holds the grade columns.
+     */
+    public Student(String studentId, String name, String studentClass, GradeStore store) {
+        this.studentId = studentId;
+        this.name = name;
+        this.studentClass = studentClass;
+        this.gradeStore = store;
+        this.gradeSlot = store.allocate();
+    }
+
     // Getters
     public String getStudentId() {
         return studentId;
@@ -35,41 +60,133 @@ public class Student {
         return studentClass;
     }
 
+    /**
+     * @return The grades by subject. For a store-backed student this is a
+     *         live view over the store's columns.
+     */
     public Map<String, Grade> getSubjectGrades() {
-        return subjectGrades;
+        return subjectGrades != null ? subjectGrades : gradeStore.view(gradeSlot);
+    }
+
+    /**
+     * Returns a detached copy of this student, taken under the student's lock,
+     * so all of its grades and totals belong to the same moment. The copy has
+     * no listener and its own grade map.
+     */
+    public synchronized Student snapshot() {
+        Student copy = new Student(studentId, name, studentClass);
+        copy.subjectGrades.putAll(getSubjectGrades());
+        copy.totalMarks = totalMarks;
+        copy.mathsAndScienceTotal = mathsAndScienceTotal;
+        copy.malpractice = malpractice;
+        return copy;
+    }
+
+    /**
+     * Registers the callback notified by addSubjectGrade. Not persisted.
+     *
+     * @param listener The listener, or null to stop notifications.
+     */
+    public void setGradeListener(GradeListener listener) {
+        this.listener = listener;
     }
 
     /**
      * Adds or updates a grade for a specific subject.
+     * Grades must be changed through this method (not through the map from
+     * getSubjectGrades()) so the cached totals and remark stay current.
      * 
      * @param subject The subject name.
      * @param grade   The Grade object containing score and status.
      */
-    public void addSubjectGrade(String subject, Grade grade) {
-        this.subjectGrades.put(subject, grade);
+    public synchronized void addSubjectGrade(String subject, Grade grade) {
+        Grade previous = storeGrade(subject, grade);
+        refreshTotals();
+        if (listener != null) {
+            listener.onGradeChanged(this, subject, previous, grade);
+        }
+    }
+
+    /**
+     * Adds or updates several subjects as one atomic change: no other thread
+     * sees some of the new grades without the rest.
+     *
+     * @param grades The new grades by subject name.
+     */
+    public synchronized void addSubjectGrades(Map<String, Grade> grades) {
+        Map<String, Grade> previous = new HashMap<>();
+        for (Map.Entry<String, Grade> entry : grades.entrySet()) {
+            previous.put(entry.getKey(), storeGrade(entry.getKey(), entry.getValue()));
+        }
+        refreshTotals();
+        if (listener != null) {
+            for (Map.Entry<String, Grade> entry : grades.entrySet()) {
+                listener.onGradeChanged(this, entry.getKey(), previous.get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private Grade storeGrade(String subject, Grade grade) {
+        return subjectGrades != null
+                ? subjectGrades.put(subject, grade)
+                : gradeStore.put(gradeSlot, subject, grade);
+    }
+
+    /**
+     * Recomputes the cached totals and malpractice flag from the current grades.
+     * Only a handful of subjects are involved, so this is constant time.
+     */
+    private void refreshTotals() {
+        Map<String, Grade> grades = getSubjectGrades();
+        this.totalMarks = sumOfScores(grades);
+        this.mathsAndScienceTotal = positiveScore("Maths") + positiveScore("Science");
+        this.malpractice = hasMalpractice(grades);
+    }
+
+    /**
+     * Sums the valid scores (0 or higher) in iteration order. The cached
+     * total and hasConsistentTotals both use this loop, so they agree to the bit.
+     */
+    private static double sumOfScores(Map<String, Grade> grades) {
+        double total = 0;
+        for (Grade grade : grades.values()) {
+            if (grade.getScore() >= 0) {
+                total += grade.getScore();
+            }
+        }
+        return total;
+    }
+
+    private static boolean hasMalpractice(Map<String, Grade> grades) {
+        for (Grade grade : grades.values()) {
+            if (grade.getStatus() == Grade.Status.MALPRACTICE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double positiveScore(String subject) {
+        Grade grade = getSubjectGrades().get(subject);
+        return grade != null && grade.getScore() > 0 ? grade.getScore() : 0;
     }
 
     /**
-     * Calculates the total marks for the student. Treats non-graded scores as 0.
+     * Total marks for the student. Non-graded scores count as 0.
      * 
      * @return The sum of all subject scores.
      */
     public double getTotalMarks() {
-        return subjectGrades.values().stream()
-                .mapToDouble(Grade::getScore)
-                .filter(score -> score >= 0) // Only sum valid scores (0 or higher)
-                .sum();
+        return totalMarks;
     }
 
     /**
-     * Calculates the sum of Maths and Science marks for tie-breaking.
+     * Sum of Maths and Science marks, used for tie-breaking.
      * 
      * @return The sum of scores for Maths and Science.
      */
     public double getMathsAndScienceTotal() {
-        double maths = subjectGrades.get("Maths").getScore();
-        double science = subjectGrades.get("Science").getScore();
-        return (maths > 0 ? maths : 0) + (science > 0 ? science : 0);
+        return mathsAndScienceTotal;
     }
 
     /**
@@ -78,13 +195,22 @@ public class Student {
      * @return "Malpractice", "Pass", or "Fail".
      */
     public String getRemark() {
-        boolean hasMalpractice = subjectGrades.values().stream()
-                .anyMatch(grade -> grade.getStatus().equals("Malpractice"));
-
-        if (hasMalpractice) {
+        if (malpractice) {
             return "Malpractice";
         }
+        return totalMarks > 100 ? "Pass" : "Fail";
+    }
 
-        return getTotalMarks() > 100 ? "Pass" : "Fail";
+    /**
+     * Checks the cached totals and remark against a full recomputation
+     * from the grade map.
+     *
+     * @return true if every cached value matches.
+     */
+    public synchronized boolean hasConsistentTotals() {
+        Map<String, Grade> grades = getSubjectGrades();
+        double mathsAndScience = positiveScore("Maths") + positiveScore("Science");
+        return sumOfScores(grades) == totalMarks && mathsAndScience == mathsAndScienceTotal
+                && hasMalpractice(grades) == malpractice;
     }
-}
\ No newline at end of file
+}
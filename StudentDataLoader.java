@@ -0,0 +1,127 @@
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming reader for the students.json data file.
+ * Walks the file once, token by token, and builds Student and Grade
+ * objects directly instead of going through an intermediate tree.
+ */
+public class StudentDataLoader {
+    private final Map<String, Student> students;
+    private final Set<String> classNames;
+    private final StudentTypeAdapter studentAdapter;
+    private long elapsedNanos;
+
+    public StudentDataLoader() {
+        this(null);
+    }
+
+    /**
+     * @param gradeStore Columnar store for the loaded grades, or null to keep a map per student.
+     */
+    public StudentDataLoader(GradeStore gradeStore) {
+        this(gradeStore, new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Loads into existing maps, so several loaders can fill the same maps
+     * from different files at once.
+     *
+     * @param gradeStore Columnar store for the loaded grades, or null to keep a map per student.
+     * @param students   Receives the students; must be safe for concurrent puts if shared.
+     * @param classNames Receives the class names; must be safe for concurrent adds if shared.
+     */
+    public StudentDataLoader(GradeStore gradeStore, Map<String, Student> students, Set<String> classNames) {
+        this.studentAdapter = new StudentTypeAdapter(gradeStore);
+        this.students = students;
+        this.classNames = classNames;
+    }
+
+    /**
+     * Reads the whole document from the given reader.
+     * Unknown fields are skipped so older or newer files still load.
+     *
+     * @param in The reader positioned at the start of the document.
+     * @throws IOException If the document cannot be read or is malformed.
+     */
+    public void load(Reader in) throws IOException {
+        long start = System.nanoTime();
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() == JsonToken.END_DOCUMENT) {
+            elapsedNanos = System.nanoTime() - start;
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "students":
+                    readStudents(reader);
+                    break;
+                case "classNames":
+                    readClassNames(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void readStudents(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            Student student = studentAdapter.read(reader, key);
+            if (student != null) {
+                students.put(key, student);
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readClassNames(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String className = StudentTypeAdapter.nextStringOrNull(reader);
+            if (className != null) {
+                classNames.add(className);
+            }
+        }
+        reader.endArray();
+    }
+
+    // Getters
+    public Map<String, Student> getStudents() {
+        return students;
+    }
+
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return Students read per second, or 0 if nothing was timed.
+     */
+    public double getRecordsPerSecond() {
+        return elapsedNanos > 0 ? students.size() * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+}
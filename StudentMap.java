@@ -0,0 +1,423 @@
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Concurrent map from student ID to Student, specialised for the "S<n>"
+ * IDs the tracker issues. The number is parsed once and the student is
+ * kept in slot n of fixed-size pages, so a lookup is a parse and two array
+ * reads with no allocation, and there is no per-entry node or key String.
+ * IDs in any other form (e.g. "S007" from an imported file) go to an
+ * ordinary concurrent map, so every key is still accepted.
+ *
+ * Pages are never moved once created, like GradeStore's, so readers never
+ * lock. The highest number seen, including numbered overflow IDs, is
+ * tracked as students are added, which gives the next free ID without
+ * scanning the keys.
+ */
+public class StudentMap extends AbstractMap<String, Student> implements ConcurrentMap<String, Student> {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    /** Numbers above this go to the overflow map, which bounds the page directory. */
+    private static final int MAX_DENSE_NUMBER = 1 << 30;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile AtomicReferenceArray<Student>[] pages = new AtomicReferenceArray[0];
+    private final Map<String, Student> overflow = new ConcurrentHashMap<>();
+    private final AtomicInteger denseCount = new AtomicInteger();
+    private final AtomicInteger maxNumber = new AtomicInteger();
+
+    /**
+     * Parses a canonical ID: "S" then a number without leading zeros.
+     *
+     * @param id         The ID.
+     * @param ignoreCase Whether "s" is accepted as well as "S".
+     * @return The number, or -1 if the ID is not canonical or the number is too large.
+     */
+    public static int parseNumber(CharSequence id, boolean ignoreCase) {
+        int length = id.length();
+        if (length < 2 || length > 11) {
+            return -1;
+        }
+        char prefix = id.charAt(0);
+        if (prefix != 'S' && !(ignoreCase && prefix == 's')) {
+            return -1;
+        }
+        if (id.charAt(1) == '0') {
+            return -1;
+        }
+        long number = 0;
+        for (int i = 1; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number <= MAX_DENSE_NUMBER ? (int) number : -1;
+    }
+
+    private static int denseNumber(Object key) {
+        return key instanceof String ? parseNumber((String) key, false) : -1;
+    }
+
+    /**
+     * @return The page holding the number's slot, or null if it was never created.
+     */
+    private AtomicReferenceArray<Student> page(int number) {
+        AtomicReferenceArray<Student>[] directory = pages;
+        int index = number >>> PAGE_BITS;
+        return index < directory.length ? directory[index] : null;
+    }
+
+    private AtomicReferenceArray<Student> pageForWrite(int number) {
+        AtomicReferenceArray<Student> page = page(number);
+        if (page != null) {
+            return page;
+        }
+        synchronized (this) {
+            AtomicReferenceArray<Student>[] directory = pages;
+            int index = number >>> PAGE_BITS;
+            if (index >= directory.length) {
+                directory = Arrays.copyOf(directory, Math.max(index + 1, directory.length * 2));
+            }
+            if (directory[index] == null) {
+                directory[index] = new AtomicReferenceArray<>(PAGE_SIZE);
+            }
+            // Republished even when not resized, so readers see the new page.
+            pages = directory;
+            return directory[index];
+        }
+    }
+
+    private void added(int number) {
+        denseCount.incrementAndGet();
+        maxNumber.accumulateAndGet(number, Math::max);
+    }
+
+    /**
+     * Counts an overflow ID towards the highest number when the text after
+     * its prefix is a number, as in "S007", so the next issued ID stays above it.
+     */
+    private void addedOverflow(String key) {
+        try {
+            int number = Integer.parseInt(key.substring(1));
+            maxNumber.accumulateAndGet(number, Math::max);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // Not numbered; it cannot clash with an issued ID.
+        }
+    }
+
+    /**
+     * Looks up a student by ID, ignoring the case of the "S" prefix, without
+     * allocating for canonical IDs.
+     *
+     * @param id The ID as typed, e.g. "s42".
+     * @return The student, or null if there is none.
+     */
+    public Student find(CharSequence id) {
+        int number = parseNumber(id, true);
+        if (number >= 0) {
+            AtomicReferenceArray<Student> page = page(number);
+            return page != null ? page.get(number & PAGE_MASK) : null;
+        }
+        return overflow.get(id.toString().toUpperCase());
+    }
+
+    /**
+     * @return The highest number among the IDs ever added, or 0. Overflow
+     *         IDs count when they are numbered, e.g. 7 for "S007".
+     */
+    public int getMaxNumber() {
+        return maxNumber.get();
+    }
+
+    @Override
+    public Student get(Object key) {
+        int number = denseNumber(key);
+        if (number < 0) {
+            return key instanceof String ? overflow.get(key) : null;
+        }
+        AtomicReferenceArray<Student> page = page(number);
+        return page != null ? page.get(number & PAGE_MASK) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Student put(String key, Student value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int number = denseNumber(key);
+        if (number < 0) {
+            addedOverflow(key);
+            return overflow.put(key, value);
+        }
+        Student previous = pageForWrite(number).getAndSet(number & PAGE_MASK, value);
+        if (previous == null) {
+            added(number);
+        }
+        return previous;
+    }
+
+    @Override
+    public Student putIfAbsent(String key, Student value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int number = denseNumber(key);
+        if (number < 0) {
+            addedOverflow(key);
+            return overflow.putIfAbsent(key, value);
+        }
+        AtomicReferenceArray<Student> page = pageForWrite(number);
+        if (page.compareAndSet(number & PAGE_MASK, null, value)) {
+            added(number);
+            return null;
+        }
+        Student existing = page.get(number & PAGE_MASK);
+        return existing != null ? existing : putIfAbsent(key, value);
+    }
+
+    /**
+     * Runs the mapping function at most once per absent key, like
+     * ConcurrentHashMap. Concurrent callers for the same page wait.
+     */
+    @Override
+    public Student computeIfAbsent(String key, Function<? super String, ? extends Student> mappingFunction) {
+        int number = denseNumber(key);
+        if (number < 0) {
+            Student result = overflow.computeIfAbsent(key, mappingFunction);
+            if (result != null) {
+                addedOverflow(key);
+            }
+            return result;
+        }
+        AtomicReferenceArray<Student> page = pageForWrite(number);
+        int slot = number & PAGE_MASK;
+        Student existing = page.get(slot);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (page) {
+            existing = page.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+            Student created = mappingFunction.apply(key);
+            if (created != null && page.compareAndSet(slot, null, created)) {
+                added(number);
+                return created;
+            }
+            return created != null ? page.get(slot) : null;
+        }
+    }
+
+    @Override
+    public Student remove(Object key) {
+        int number = denseNumber(key);
+        if (number < 0) {
+            return key instanceof String ? overflow.remove(key) : null;
+        }
+        AtomicReferenceArray<Student> page = page(number);
+        Student previous = page != null ? page.getAndSet(number & PAGE_MASK, null) : null;
+        if (previous != null) {
+            denseCount.decrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int number = denseNumber(key);
+        if (number < 0) {
+            return key instanceof String && overflow.remove(key, value);
+        }
+        AtomicReferenceArray<Student> page = page(number);
+        if (value instanceof Student && page != null
+                && page.compareAndSet(number & PAGE_MASK, (Student) value, null)) {
+            denseCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replace(String key, Student oldValue, Student newValue) {
+        if (newValue == null) {
+            throw new NullPointerException();
+        }
+        int number = denseNumber(key);
+        if (number < 0) {
+            return overflow.replace(key, oldValue, newValue);
+        }
+        AtomicReferenceArray<Student> page = page(number);
+        return oldValue != null && page != null && page.compareAndSet(number & PAGE_MASK, oldValue, newValue);
+    }
+
+    @Override
+    public Student replace(String key, Student value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int number = denseNumber(key);
+        if (number < 0) {
+            return overflow.replace(key, value);
+        }
+        AtomicReferenceArray<Student> page = page(number);
+        if (page == null) {
+            return null;
+        }
+        int slot = number & PAGE_MASK;
+        while (true) {
+            Student current = page.get(slot);
+            if (current == null || page.compareAndSet(slot, current, value)) {
+                return current;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return denseCount.get() + overflow.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        AtomicReferenceArray<Student>[] empty = new AtomicReferenceArray[0];
+        pages = empty;
+        denseCount.set(0);
+        maxNumber.set(0);
+        overflow.clear();
+    }
+
+    /**
+     * Walks the pages in ID order, then the overflow map. Weakly consistent,
+     * like ConcurrentHashMap's iterators.
+     */
+    private abstract class Walk<T> implements Iterator<T> {
+        private final AtomicReferenceArray<Student>[] directory = pages;
+        private final Iterator<Map.Entry<String, Student>> rest = overflow.entrySet().iterator();
+        private int number;
+        private Student nextStudent;
+        private Map.Entry<String, Student> nextEntry;
+
+        @Override
+        public boolean hasNext() {
+            if (nextStudent != null || nextEntry != null) {
+                return true;
+            }
+            long limit = (long) directory.length << PAGE_BITS;
+            while (number < limit) {
+                AtomicReferenceArray<Student> page = directory[number >>> PAGE_BITS];
+                if (page == null) {
+                    number = ((number >>> PAGE_BITS) + 1) << PAGE_BITS;
+                    continue;
+                }
+                Student student = page.get(number & PAGE_MASK);
+                number++;
+                if (student != null) {
+                    nextStudent = student;
+                    return true;
+                }
+            }
+            if (rest.hasNext()) {
+                nextEntry = rest.next();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result;
+            if (nextStudent != null) {
+                result = dense(number - 1, nextStudent);
+                nextStudent = null;
+            } else {
+                result = other(nextEntry);
+                nextEntry = null;
+            }
+            return result;
+        }
+
+        abstract T dense(int number, Student student);
+
+        abstract T other(Map.Entry<String, Student> entry);
+    }
+
+    @Override
+    public Collection<Student> values() {
+        return new AbstractCollection<Student>() {
+            @Override
+            public Iterator<Student> iterator() {
+                return new Walk<Student>() {
+                    @Override
+                    Student dense(int number, Student student) {
+                        return student;
+                    }
+
+                    @Override
+                    Student other(Map.Entry<String, Student> entry) {
+                        return entry.getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return StudentMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, Student>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Student>>() {
+            @Override
+            public Iterator<Map.Entry<String, Student>> iterator() {
+                return new Walk<Map.Entry<String, Student>>() {
+                    @Override
+                    Map.Entry<String, Student> dense(int number, Student student) {
+                        return new SimpleImmutableEntry<>("S" + number, student);
+                    }
+
+                    @Override
+                    Map.Entry<String, Student> other(Map.Entry<String, Student> entry) {
+                        return new SimpleImmutableEntry<>(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return StudentMap.this.size();
+            }
+        };
+    }
+}
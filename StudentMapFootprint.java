@@ -0,0 +1,106 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap and lookup comparison of StudentMap against the ConcurrentHashMap
+ * it replaced in GradeTracker, at 1M students by default.
+ *
+ * Retained heap covers the map structure only; the Student objects and
+ * their ID strings are built before the baseline. Lookups use random IDs
+ * typed in lower case, which findStudentById used to upper-case first.
+ *
+ * Run with enough heap for both maps, e.g.
+ * java -Xmx3g -cp .:gson-2.10.1.jar StudentMapFootprint 1000000
+ */
+public class StudentMapFootprint {
+    private static final int LOOKUPS = 10_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Student[] students = new Student[count];
+        String[] queries = new String[1 << 16];
+        for (int i = 0; i < count; i++) {
+            String id = "S" + (i + 1);
+            students[i] = new Student(id, id, "First Year");
+        }
+        Random random = new Random(DatasetGenerator.DEFAULT_SEED);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = "s" + (1 + random.nextInt(count));
+        }
+
+        long before = usedHeap();
+        Map<String, Student> hashMap = new ConcurrentHashMap<>();
+        for (Student student : students) {
+            hashMap.put(student.getStudentId(), student);
+        }
+        long hashMapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        StudentMap studentMap = new StudentMap();
+        for (Student student : students) {
+            studentMap.put(student.getStudentId(), student);
+        }
+        long studentMapBytes = usedHeap() - before;
+
+        double[] hashMapResult = null;
+        double[] studentMapResult = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            hashMapResult = time(() -> {
+                long found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    found += hashMap.get(queries[i & (queries.length - 1)].toUpperCase()) != null ? 1 : 0;
+                }
+                return found;
+            });
+            studentMapResult = time(() -> {
+                long found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    found += studentMap.find(queries[i & (queries.length - 1)]) != null ? 1 : 0;
+                }
+                return found;
+            });
+        }
+
+        System.out.printf("Students:             %,d%n", count);
+        System.out.printf("Map heap per student: ConcurrentHashMap %,d bytes, StudentMap %,d bytes (%.1fx)%n",
+                hashMapBytes / count, studentMapBytes / count, (double) hashMapBytes / studentMapBytes);
+        System.out.printf("Lookup:               ConcurrentHashMap %.1f ns (%,.0f B allocated), "
+                + "StudentMap %.1f ns (%,.0f B allocated)%n", hashMapResult[0], hashMapResult[1],
+                studentMapResult[0], studentMapResult[1]);
+        if (hashMap.size() != studentMap.size() || students[0] == null) {
+            throw new IllegalStateException("Maps differ");
+        }
+    }
+
+    private interface Lookups {
+        long run();
+    }
+
+    /**
+     * @return Nanoseconds and bytes allocated per lookup.
+     */
+    private static double[] time(Lookups lookups) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long found = lookups.run();
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        if (found != LOOKUPS) {
+            throw new IllegalStateException("Missing students: " + (LOOKUPS - found));
+        }
+        return new double[] { elapsed / (double) LOOKUPS, allocated / (double) LOOKUPS };
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
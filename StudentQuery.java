@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative description of a question about students: which ones to keep,
+ * in what order, and how many. Run it with GradeTracker.query; the tracker
+ * decides how to find the students (see QueryPlan).
+ *
+ * <pre>
+ * new StudentQuery().failed("Maths")
+ * new StudentQuery().withStatusInAnySubject(Grade.Status.ABSENT)
+ * new StudentQuery().orderByScore("Science").limit(10)
+ * new StudentQuery().inClass("First Year").remark("Pass").orderBy(StudentQuery.Order.REPORT).limit(5)
+ * </pre>
+ * Conditions are combined with AND. Subject and class names are matched
+ * case-insensitively.
+ */
+public class StudentQuery {
+    public enum Order {
+        /** Whatever order the chosen source yields. */
+        NONE,
+        /** Report order: total descending, then Maths+Science, then ID. */
+        REPORT,
+        /** One subject's graded score descending; students without one come last. */
+        SCORE,
+        /** Student number ascending. */
+        STUDENT_ID
+    }
+
+    /**
+     * A condition on one subject's grade, or on any subject's grade when
+     * subject is -1.
+     */
+    static final class SubjectCondition {
+        final int subject;
+        final Grade.Status status;
+        final double minScore;
+        final double maxScore;
+
+        SubjectCondition(int subject, Grade.Status status, double minScore, double maxScore) {
+            this.subject = subject;
+            this.status = status;
+            this.minScore = minScore;
+            this.maxScore = maxScore;
+        }
+
+        boolean matches(Map<String, Grade> grades) {
+            if (subject >= 0) {
+                return matches(grades.get(App.SUBJECTS[subject]));
+            }
+            for (String name : App.SUBJECTS) {
+                if (matches(grades.get(name))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean matches(Grade grade) {
+            return grade != null && grade.getStatus() == status
+                    && grade.getScore() >= minScore && grade.getScore() <= maxScore;
+        }
+
+        /**
+         * @return The StatusIndex outcome whose students include every match, or null if none does.
+         */
+        StatusIndex.Outcome indexedOutcome() {
+            if (status != Grade.Status.GRADED) {
+                return StatusIndex.Outcome.of(status);
+            }
+            return maxScore < ClassStatistics.SUBJECT_PASS_MARK ? StatusIndex.Outcome.FAILED : null;
+        }
+
+        @Override
+        public String toString() {
+            String name = subject >= 0 ? App.SUBJECTS[subject] : "any subject";
+            if (status != Grade.Status.GRADED) {
+                return name + " " + status;
+            }
+            return name + " score " + minScore + "-" + maxScore;
+        }
+    }
+
+    private String className;
+    private final List<SubjectCondition> subjectConditions = new ArrayList<>();
+    private double minTotal = Double.NEGATIVE_INFINITY;
+    private double maxTotal = Double.POSITIVE_INFINITY;
+    private String remark;
+    private Order order = Order.NONE;
+    private int orderSubject = -1;
+    private int limit = Integer.MAX_VALUE;
+    private boolean parallel;
+
+    /**
+     * @param className Only students in this class.
+     */
+    public StudentQuery inClass(String className) {
+        this.className = className;
+        return this;
+    }
+
+    public StudentQuery withStatus(String subject, Grade.Status status) {
+        subjectConditions.add(new SubjectCondition(ordinal(subject), status,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        return this;
+    }
+
+    /**
+     * @param status "Graded", "Absent", "Malpractice" or "Not Graded", matched case-insensitively.
+     * @throws IllegalArgumentException If the status is not one of those.
+     */
+    public StudentQuery withStatus(String subject, String status) {
+        return withStatus(subject, Grade.Status.fromLabel(status));
+    }
+
+    /**
+     * Students with the status in at least one subject.
+     */
+    public StudentQuery withStatusInAnySubject(Grade.Status status) {
+        subjectConditions.add(new SubjectCondition(-1, status, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        return this;
+    }
+
+    /**
+     * @see #withStatus(String, String)
+     */
+    public StudentQuery withStatusInAnySubject(String status) {
+        return withStatusInAnySubject(Grade.Status.fromLabel(status));
+    }
+
+    /**
+     * Graded students whose score is between min and max inclusive.
+     */
+    public StudentQuery scoreBetween(String subject, double min, double max) {
+        subjectConditions.add(new SubjectCondition(ordinal(subject), Grade.Status.GRADED, min, max));
+        return this;
+    }
+
+    /**
+     * Graded below the subject pass mark, as counted by ClassStatistics.
+     */
+    public StudentQuery failed(String subject) {
+        return scoreBetween(subject, Grade.MIN_SCORE, Math.nextDown(ClassStatistics.SUBJECT_PASS_MARK));
+    }
+
+    /**
+     * Graded below the subject pass mark in at least one subject.
+     */
+    public StudentQuery failedAnySubject() {
+        subjectConditions.add(new SubjectCondition(-1, Grade.Status.GRADED, Grade.MIN_SCORE,
+                Math.nextDown(ClassStatistics.SUBJECT_PASS_MARK)));
+        return this;
+    }
+
+    /**
+     * Total marks between min and max inclusive.
+     */
+    public StudentQuery totalBetween(double min, double max) {
+        this.minTotal = min;
+        this.maxTotal = max;
+        return this;
+    }
+
+    /**
+     * @param remark "Pass", "Fail" or "Malpractice".
+     */
+    public StudentQuery remark(String remark) {
+        this.remark = remark;
+        return this;
+    }
+
+    /**
+     * @param order Any order except SCORE, which needs a subject; see orderByScore.
+     */
+    public StudentQuery orderBy(Order order) {
+        if (order == Order.SCORE) {
+            throw new IllegalArgumentException("Ordering by score needs a subject.");
+        }
+        this.order = order;
+        this.orderSubject = -1;
+        return this;
+    }
+
+    public StudentQuery orderByScore(String subject) {
+        this.order = Order.SCORE;
+        this.orderSubject = ordinal(subject);
+        return this;
+    }
+
+    /**
+     * @param limit Most students to return; with an order, the first ones in that order.
+     */
+    public StudentQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Lets a scan that no index can narrow run on several threads.
+     */
+    public StudentQuery parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * @return Whether the student meets every condition.
+     */
+    public boolean matches(Student student) {
+        if (className != null && !className.equalsIgnoreCase(student.getStudentClass())) {
+            return false;
+        }
+        double total = student.getTotalMarks();
+        if (total < minTotal || total > maxTotal) {
+            return false;
+        }
+        if (remark != null && !remark.equalsIgnoreCase(student.getRemark())) {
+            return false;
+        }
+        if (!subjectConditions.isEmpty()) {
+            Map<String, Grade> grades = student.getSubjectGrades();
+            for (SubjectCondition condition : subjectConditions) {
+                if (!condition.matches(grades)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The comparator for the order, or null for Order.NONE.
+     */
+    public Comparator<Student> comparator() {
+        switch (order) {
+            case REPORT:
+                return ClassRanking.REPORT_ORDER;
+            case SCORE:
+                String subject = App.SUBJECTS[orderSubject];
+                return Comparator.comparingDouble((Student student) -> -gradedScore(student, subject))
+                        .thenComparing(ClassRanking.REPORT_ORDER);
+            case STUDENT_ID:
+                return Comparator.comparingLong(StudentQuery::idNumber)
+                        .thenComparing(Student::getStudentId);
+            default:
+                return null;
+        }
+    }
+
+    private static double gradedScore(Student student, String subject) {
+        Grade grade = student.getSubjectGrades().get(subject);
+        return grade != null && grade.isGraded() ? grade.getScore() : -1;
+    }
+
+    private static long idNumber(Student student) {
+        int number = StudentMap.parseNumber(student.getStudentId(), false);
+        return number >= 0 ? number : Long.MAX_VALUE;
+    }
+
+    private static int ordinal(String subject) {
+        for (int i = 0; i < App.SUBJECTS.length; i++) {
+            if (App.SUBJECTS[i].equalsIgnoreCase(subject)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown subject: " + subject);
+    }
+
+    // Getters
+    public String getClassName() {
+        return className;
+    }
+
+    List<SubjectCondition> getSubjectConditions() {
+        return Collections.unmodifiableList(subjectConditions);
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit != Integer.MAX_VALUE;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+}
@@ -0,0 +1,141 @@
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gson adapter for Student that reads and writes the students.json layout
+ * directly, whether the student's grades live in a map or in a GradeStore.
+ */
+public class StudentTypeAdapter extends TypeAdapter<Student> {
+    private static final GradeTypeAdapter GRADE_ADAPTER = new GradeTypeAdapter();
+
+    private final GradeStore gradeStore;
+
+    /**
+     * @param gradeStore Columnar store for students that are read, or null to keep a map per student.
+     */
+    public StudentTypeAdapter(GradeStore gradeStore) {
+        this.gradeStore = gradeStore;
+    }
+
+    @Override
+    public void write(JsonWriter out, Student student) throws IOException {
+        if (student == null) {
+            out.nullValue();
+            return;
+        }
+        // Write a consistent copy so the student's lock is never held across I/O.
+        writeStudent(out, student.snapshot());
+    }
+
+    private void writeStudent(JsonWriter out, Student student) throws IOException {
+        out.beginObject();
+        writeString(out, "studentId", student.getStudentId());
+        writeString(out, "name", student.getName());
+        writeString(out, "studentClass", student.getStudentClass());
+        out.name("subjectGrades").beginObject();
+        for (Map.Entry<String, Grade> entry : student.getSubjectGrades().entrySet()) {
+            out.name(entry.getKey());
+            GRADE_ADAPTER.write(out, entry.getValue());
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    @Override
+    public Student read(JsonReader in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * Reads one student object. Unknown fields are skipped.
+     *
+     * @param in        The reader positioned at the student object.
+     * @param defaultId ID to use when the object has no "studentId" field.
+     * @return The student, or null for a JSON null.
+     */
+    public Student read(JsonReader in, String defaultId) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String studentId = defaultId;
+        String name = null;
+        String studentClass = null;
+        Map<String, Grade> grades = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "studentId":
+                    studentId = nextStringOrNull(in);
+                    break;
+                case "name":
+                    name = nextStringOrNull(in);
+                    break;
+                case "studentClass":
+                    studentClass = nextStringOrNull(in);
+                    break;
+                case "subjectGrades":
+                    grades = readGrades(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Student student = gradeStore != null
+                ? new Student(studentId, name, studentClass, gradeStore)
+                : new Student(studentId, name, studentClass);
+        if (grades != null) {
+            for (Map.Entry<String, Grade> entry : grades.entrySet()) {
+                if (gradeStore != null && GradeStore.subjectOrdinal(entry.getKey()) < 0) {
+                    // The columns hold only App.SUBJECTS; skip the grade rather than fail the load.
+                    System.err.println("Warning: skipping unknown subject \"" + entry.getKey() + "\" of student "
+                            + studentId + " (not stored in columnar mode)");
+                    continue;
+                }
+                student.addSubjectGrade(entry.getKey(), entry.getValue());
+            }
+        }
+        return student;
+    }
+
+    private Map<String, Grade> readGrades(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, Grade> grades = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String subject = in.nextName();
+            Grade grade = GRADE_ADAPTER.read(in);
+            if (grade != null) {
+                grades.put(subject, grade);
+            }
+        }
+        in.endObject();
+        return grades;
+    }
+
+    static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,533 @@
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Grades as they stood at the end of each closed term.
+ *
+ * Each term is an immutable snapshot that shares everything unchanged with
+ * the term before it: students whose grades did not change keep the same
+ * Record, and a changed student's unchanged grades keep the same Grade
+ * objects. Records live in a persistent 32-way trie keyed by the number in
+ * "S<n>" IDs, so closing a term copies only the trie nodes on the paths to
+ * changed students. Memory therefore grows with the number of changes, not
+ * with terms times students.
+ *
+ * On disk each term is one file in a history directory, numbered in the
+ * order the terms were closed, holding only the students that changed in
+ * that term in the students.json layout:
+ *   000001.json  {"term":"2025 Term 1","closedAt":"2025-12-19T16:00:00Z","students":{"S1":{...}}}
+ * Files are only ever added. They are streamed in on first use, so startup
+ * does not pay for the history.
+ */
+public class TermHistory {
+    /**
+     * A student as recorded at the end of a term. Immutable.
+     */
+    public static final class Record {
+        private final String studentId;
+        private final String name;
+        private final String studentClass;
+        private final Grade[] grades; // Indexed like App.SUBJECTS; null where there is no grade.
+
+        private Record(String studentId, String name, String studentClass, Grade[] grades) {
+            this.studentId = studentId;
+            this.name = name;
+            this.studentClass = studentClass;
+            this.grades = grades;
+        }
+
+        /**
+         * Records a student's current state, reusing the previous record, or
+         * its Grade objects, where nothing changed.
+         *
+         * @param student  The live student; locked while it is read.
+         * @param previous The student's record from the last term, or null.
+         * @return previous itself if the student is unchanged.
+         */
+        static Record of(Student student, Record previous) {
+            synchronized (student) {
+                Map<String, Grade> current = student.getSubjectGrades();
+                Grade[] grades = new Grade[App.SUBJECTS.length];
+                boolean changed = previous == null || !Objects.equals(previous.name, student.getName())
+                        || !Objects.equals(previous.studentClass, student.getStudentClass());
+                for (int i = 0; i < grades.length; i++) {
+                    Grade grade = current.get(App.SUBJECTS[i]);
+                    Grade old = previous != null ? previous.grades[i] : null;
+                    if (sameGrade(grade, old)) {
+                        grades[i] = old;
+                    } else {
+                        grades[i] = grade; // Grades are never modified once made, so they can be shared.
+                        changed = true;
+                    }
+                }
+                return changed ? new Record(student.getStudentId(), student.getName(), student.getStudentClass(), grades)
+                        : previous;
+            }
+        }
+
+        private static boolean sameGrade(Grade a, Grade b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return a == b || (a.getScore() == b.getScore() && a.getStatus() == b.getStatus());
+        }
+
+        /**
+         * @return A detached Student with these grades, for reports and display.
+         */
+        public Student toStudent() {
+            Student student = new Student(studentId, name, studentClass);
+            Map<String, Grade> map = new LinkedHashMap<>();
+            for (int i = 0; i < grades.length; i++) {
+                if (grades[i] != null) {
+                    map.put(App.SUBJECTS[i], grades[i]);
+                }
+            }
+            student.addSubjectGrades(map);
+            return student;
+        }
+
+        // Getters
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public String getStudentClass() {
+            return studentClass;
+        }
+
+        /**
+         * @param subject One of App.SUBJECTS.
+         * @return The grade at the end of the term, or null.
+         */
+        public Grade getGrade(String subject) {
+            for (int i = 0; i < App.SUBJECTS.length; i++) {
+                if (App.SUBJECTS[i].equals(subject)) {
+                    return grades[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Persistent trie from student number to Record. Nodes hold 32 slots
+     * plus an owner slot: a Builder may change nodes it created itself, and
+     * copies any other node on the way down, so published tries never change.
+     */
+    private static final class Trie {
+        static final int BITS = 5;
+        static final int WIDTH = 1 << BITS;
+        static final int MASK = WIDTH - 1;
+        static final Trie EMPTY = new Trie(new Object[WIDTH + 1], 0, 0);
+
+        final Object[] root;
+        final int shift;
+        final int size;
+
+        Trie(Object[] root, int shift, int size) {
+            this.root = root;
+            this.shift = shift;
+            this.size = size;
+        }
+
+        Record get(int number) {
+            if (number >>> (shift + BITS) != 0) {
+                return null;
+            }
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(number >>> level) & MASK];
+                if (node == null) {
+                    return null;
+                }
+            }
+            return (Record) node[number & MASK];
+        }
+
+        void forEach(Consumer<Record> action) {
+            forEach(root, shift, action);
+        }
+
+        private static void forEach(Object[] node, int level, Consumer<Record> action) {
+            for (int i = 0; i < WIDTH; i++) {
+                Object slot = node[i];
+                if (slot == null) {
+                    continue;
+                }
+                if (level == 0) {
+                    action.accept((Record) slot);
+                } else {
+                    forEach((Object[]) slot, level - BITS, action);
+                }
+            }
+        }
+    }
+
+    private static final class Builder {
+        private final Object owner = new Object();
+        private Object[] root;
+        private int shift;
+        private int size;
+
+        Builder(Trie base) {
+            this.root = base.root;
+            this.shift = base.shift;
+            this.size = base.size;
+        }
+
+        void put(int number, Record record) {
+            while (number >>> (shift + Trie.BITS) != 0) {
+                Object[] parent = newNode();
+                parent[0] = root;
+                root = parent;
+                shift += Trie.BITS;
+            }
+            root = owned(root);
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= Trie.BITS) {
+                int index = (number >>> level) & Trie.MASK;
+                Object[] child = (Object[]) node[index];
+                child = child == null ? newNode() : owned(child);
+                node[index] = child;
+                node = child;
+            }
+            if (node[number & Trie.MASK] == null) {
+                size++;
+            }
+            node[number & Trie.MASK] = record;
+        }
+
+        private Object[] newNode() {
+            Object[] node = new Object[Trie.WIDTH + 1];
+            node[Trie.WIDTH] = owner;
+            return node;
+        }
+
+        private Object[] owned(Object[] node) {
+            if (node[Trie.WIDTH] == owner) {
+                return node;
+            }
+            Object[] copy = Arrays.copyOf(node, node.length);
+            copy[Trie.WIDTH] = owner;
+            return copy;
+        }
+
+        Trie build() {
+            return new Trie(root, shift, size);
+        }
+    }
+
+    /**
+     * One closed term. Immutable.
+     */
+    public static final class Term {
+        private final String name;
+        private final Instant closedAt;
+        private final Trie records;
+        // Students whose IDs are not "S<n>"; copied only in terms where one changed.
+        private final Map<String, Record> otherRecords;
+        private final int changedCount;
+
+        private Term(String name, Instant closedAt, Trie records, Map<String, Record> otherRecords,
+                int changedCount) {
+            this.name = name;
+            this.closedAt = closedAt;
+            this.records = records;
+            this.otherRecords = otherRecords;
+            this.changedCount = changedCount;
+        }
+
+        /**
+         * @param studentId The ID in any case.
+         * @return The student's record at the end of this term, or null.
+         */
+        public Record get(String studentId) {
+            int number = StudentMap.parseNumber(studentId, true);
+            return number >= 0 ? records.get(number) : otherRecords.get(studentId.toUpperCase());
+        }
+
+        /**
+         * @param className The class name, in any case.
+         * @return Detached students of the class in report order, as at the end of the term.
+         */
+        public List<Student> getClassReport(String className) {
+            List<Student> rows = new ArrayList<>();
+            Consumer<Record> collect = record -> {
+                if (className.equalsIgnoreCase(record.studentClass)) {
+                    rows.add(record.toStudent());
+                }
+            };
+            records.forEach(collect);
+            otherRecords.values().forEach(collect);
+            rows.sort(ClassRanking.REPORT_ORDER);
+            return rows;
+        }
+
+        /**
+         * @return The classes that had students at the end of the term, sorted.
+         */
+        public List<String> getClassNames() {
+            TreeSet<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            records.forEach(record -> names.add(record.studentClass));
+            otherRecords.values().forEach(record -> names.add(record.studentClass));
+            return new ArrayList<>(names);
+        }
+
+        // Getters
+        public String getName() {
+            return name;
+        }
+
+        public Instant getClosedAt() {
+            return closedAt;
+        }
+
+        public int getStudentCount() {
+            return records.size + otherRecords.size();
+        }
+
+        /**
+         * @return How many students changed in this term, i.e. what the term added to the history.
+         */
+        public int getChangedCount() {
+            return changedCount;
+        }
+    }
+
+    private static final Pattern TERM_FILE = Pattern.compile("\\d+\\.json");
+
+    private final Path directory;
+    // Map-backed students: history never takes slots in the tracker's GradeStore.
+    private final TypeAdapter<Student> adapter = new StudentTypeAdapter(null);
+    private volatile List<Term> terms;
+
+    /**
+     * @param directory The history directory; created when the first term is closed.
+     */
+    public TermHistory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The closed terms, oldest first.
+     */
+    public List<Term> getTerms() {
+        try {
+            return loaded();
+        } catch (IOException e) {
+            System.err.println("Error reading term history: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @param name The term name, in any case.
+     * @return The term, or null if no term has that name.
+     */
+    public Term getTerm(String name) {
+        for (Term term : getTerms()) {
+            if (term.name.equalsIgnoreCase(name)) {
+                return term;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param studentId The ID in any case.
+     * @return The student at the end of each term they were enrolled in, by term name, oldest first.
+     */
+    public Map<String, Student> getTrend(String studentId) {
+        Map<String, Student> trend = new LinkedHashMap<>();
+        for (Term term : getTerms()) {
+            Record record = term.get(studentId);
+            if (record != null) {
+                trend.put(term.name, record.toStudent());
+            }
+        }
+        return trend;
+    }
+
+    /**
+     * Records the current grades as the end of a term. Only students that
+     * changed since the last term are written and given new records.
+     *
+     * @param name     A name not used by an earlier term.
+     * @param students Every current student.
+     * @return The new term.
+     * @throws IOException If the history cannot be read or written.
+     */
+    public synchronized Term closeTerm(String name, Collection<Student> students) throws IOException {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Term name cannot be empty.");
+        }
+        List<Term> current = loaded();
+        for (Term term : current) {
+            if (term.name.equalsIgnoreCase(name.trim())) {
+                throw new IllegalArgumentException("Term '" + term.name + "' is already closed.");
+            }
+        }
+        Term last = current.isEmpty() ? null : current.get(current.size() - 1);
+        Builder builder = new Builder(last != null ? last.records : Trie.EMPTY);
+        Map<String, Record> others = last != null ? last.otherRecords : Collections.emptyMap();
+        List<Record> changed = new ArrayList<>();
+        for (Student student : students) {
+            Record previous = last != null ? last.get(student.getStudentId()) : null;
+            Record record = Record.of(student, previous);
+            if (record != previous) {
+                changed.add(record);
+            }
+        }
+        others = apply(builder, others, changed);
+        Term term = new Term(name.trim(), Instant.now(), builder.build(), others, changed.size());
+        write(current.size() + 1, term, changed);
+        List<Term> updated = new ArrayList<>(current);
+        updated.add(term);
+        terms = Collections.unmodifiableList(updated);
+        return term;
+    }
+
+    /**
+     * Puts the records into the trie, or into a copy of the other-ID map.
+     *
+     * @return The other-ID map to use for the new term.
+     */
+    private static Map<String, Record> apply(Builder builder, Map<String, Record> others, List<Record> changed) {
+        Map<String, Record> copy = null;
+        for (Record record : changed) {
+            int number = StudentMap.parseNumber(record.studentId, false);
+            if (number >= 0) {
+                builder.put(number, record);
+            } else {
+                if (copy == null) {
+                    copy = new HashMap<>(others);
+                }
+                copy.put(record.studentId.toUpperCase(), record);
+            }
+        }
+        return copy != null ? Collections.unmodifiableMap(copy) : others;
+    }
+
+    private List<Term> loaded() throws IOException {
+        List<Term> current = terms;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (terms == null) {
+                terms = Collections.unmodifiableList(read());
+            }
+            return terms;
+        }
+    }
+
+    private List<Term> read() throws IOException {
+        List<Term> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> TERM_FILE.matcher(path.getFileName().toString()).matches())
+                    .sorted().collect(Collectors.toList());
+        }
+        Trie trie = Trie.EMPTY;
+        Map<String, Record> others = Collections.emptyMap();
+        for (Path file : files) {
+            String name = null;
+            Instant closedAt = null;
+            List<Record> changed = new ArrayList<>();
+            try (JsonReader in = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "term":
+                            name = in.nextString();
+                            break;
+                        case "closedAt":
+                            closedAt = Instant.parse(in.nextString());
+                            break;
+                        case "students":
+                            in.beginObject();
+                            while (in.hasNext()) {
+                                in.nextName();
+                                Student loaded = adapter.read(in);
+                                changed.add(Record.of(loaded, find(trie, others, loaded.getStudentId())));
+                            }
+                            in.endObject();
+                            break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+                in.endObject();
+            }
+            if (name == null || closedAt == null) {
+                throw new IOException("Term file " + file + " has no term name or closing time");
+            }
+            Builder builder = new Builder(trie);
+            others = apply(builder, others, changed);
+            trie = builder.build();
+            result.add(new Term(name, closedAt, trie, others, changed.size()));
+        }
+        return result;
+    }
+
+    private static Record find(Trie trie, Map<String, Record> others, String studentId) {
+        int number = StudentMap.parseNumber(studentId, false);
+        return number >= 0 ? trie.get(number) : others.get(studentId.toUpperCase());
+    }
+
+    /**
+     * Writes the term's changed students to the next term file, through a
+     * temporary file so a crash never leaves half a term behind.
+     */
+    private void write(int sequence, Term term, List<Record> changed) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%06d.json", sequence));
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                JsonWriter out = new JsonWriter(writer)) {
+            out.beginObject();
+            out.name("term").value(term.name);
+            out.name("closedAt").value(term.closedAt.toString());
+            out.name("students").beginObject();
+            for (Record record : changed) {
+                out.name(record.studentId);
+                adapter.write(out, record.toStudent());
+            }
+            out.endObject();
+            out.endObject();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Getters
+    public Path getDirectory() {
+        return directory;
+    }
+}
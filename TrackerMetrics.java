@@ -0,0 +1,312 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histograms, counters and gauges for one GradeTracker.
+ *
+ * Callers take a start time with start() and pass it back to record().
+ * Each record updates a lock-free histogram for the operation and, while a
+ * JFR recording has the event enabled, commits a "tracker.Operation" event.
+ * A periodic "tracker.Dataset" event carries the gauges.
+ *
+ * Metrics are on unless the grades.metrics system property is "false".
+ * When off, start() returns 0 and record() returns at once, without
+ * reading the clock.
+ */
+public class TrackerMetrics {
+    /** Set to "false" to turn off metrics and JFR events. */
+    public static final String METRICS_PROPERTY = "grades.metrics";
+
+    public enum Operation {
+        LOAD("Load data"),
+        SAVE("Save"),
+        COMPACT("Compact"),
+        ADD_STUDENT("Add student"),
+        FIND_STUDENT("Find student"),
+        NAME_SEARCH("Name search"),
+        CLASS_LOOKUP("Class lookup"),
+        CLASS_REPORT("Class report"),
+        ANALYTICS("Analytics"),
+        QUERY("Query"),
+        RENDER_REPORT("Render report");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Log-linear latency histogram: 8 buckets per power of two, so every
+     * percentile is within about 12% of the true value.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            totalNanos.add(value);
+            maxNanos.accumulate(value);
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * @return The smallest value that falls in the given bucket.
+         */
+        private static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return (1L << exponent) | (sub << (exponent - SUB_BUCKET_BITS));
+        }
+
+        // Getters
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / (double) n / 1_000_000.0 : 0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        /**
+         * @param percentile 0 to 100.
+         * @return The latency at that percentile in milliseconds, or 0 if nothing was recorded.
+         */
+        public double getPercentileMillis(double percentile) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    long low = lowerBound(i);
+                    long high = i + 1 < BUCKETS ? lowerBound(i + 1) : low;
+                    return Math.min((low + high) / 2, maxNanos.get()) / 1_000_000.0;
+                }
+            }
+            return getMaxMillis();
+        }
+    }
+
+    @Name("tracker.Operation")
+    @Label("Tracker Operation")
+    @Category("Student Grade Tracker")
+    @Description("One timed GradeTracker operation")
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Bytes")
+        long bytes;
+    }
+
+    @Name("tracker.Dataset")
+    @Label("Tracker Dataset")
+    @Category("Student Grade Tracker")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class DatasetEvent extends Event {
+        @Label("Students")
+        long students;
+
+        @Label("Classes")
+        long classes;
+
+        @Label("Bytes Read")
+        long bytesRead;
+
+        @Label("Bytes Written")
+        long bytesWritten;
+    }
+
+    private static final TrackerMetrics DISABLED = new TrackerMetrics(false);
+
+    private final boolean enabled;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private LongSupplier studentCount = () -> 0;
+    private LongSupplier classCount = () -> 0;
+    private LongSupplier journalBytes = () -> 0;
+    private Runnable periodicHook;
+
+    private TrackerMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new Histogram());
+        }
+    }
+
+    /**
+     * @return Metrics that are on unless turned off with the grades.metrics property.
+     */
+    public static TrackerMetrics create() {
+        return System.getProperty(METRICS_PROPERTY, "true").equalsIgnoreCase("false") ? DISABLED
+                : new TrackerMetrics(true);
+    }
+
+    /**
+     * @return Shared metrics that record nothing.
+     */
+    public static TrackerMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Sets the dataset gauges and starts the periodic JFR event for them.
+     * Call close() to stop the event.
+     *
+     * @param students     Current number of students.
+     * @param classes      Current number of classes.
+     * @param journalBytes Bytes appended to the journal so far; counted as written.
+     */
+    public void registerGauges(LongSupplier students, LongSupplier classes, LongSupplier journalBytes) {
+        if (!enabled) {
+            return;
+        }
+        this.studentCount = students;
+        this.classCount = classes;
+        this.journalBytes = journalBytes;
+        this.periodicHook = () -> {
+            DatasetEvent event = new DatasetEvent();
+            event.students = studentCount.getAsLong();
+            event.classes = classCount.getAsLong();
+            event.bytesRead = bytesRead.sum();
+            event.bytesWritten = getBytesWritten();
+            event.commit();
+        };
+        FlightRecorder.addPeriodicEvent(DatasetEvent.class, periodicHook);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The start time to pass to record(), or 0 when metrics are off.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void record(Operation operation, long start) {
+        record(operation, start, 0);
+    }
+
+    /**
+     * Records one completed operation.
+     *
+     * @param operation The operation.
+     * @param start     The value returned by start().
+     * @param bytes     Bytes read or written by the operation, or 0.
+     */
+    public void record(Operation operation, long start, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        histograms.get(operation).record(elapsed);
+        OperationEvent event = new OperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.getLabel();
+            event.elapsed = elapsed;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    public void addBytesRead(long bytes) {
+        if (enabled) {
+            bytesRead.add(bytes);
+        }
+    }
+
+    public void addBytesWritten(long bytes) {
+        if (enabled) {
+            bytesWritten.add(bytes);
+        }
+    }
+
+    // Getters
+    public Histogram getHistogram(Operation operation) {
+        return histograms.get(operation);
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum() + journalBytes.getAsLong();
+    }
+
+    public long getStudentCount() {
+        return studentCount.getAsLong();
+    }
+
+    public long getClassCount() {
+        return classCount.getAsLong();
+    }
+
+    /**
+     * Stops the periodic JFR event.
+     */
+    public void close() {
+        if (periodicHook != null) {
+            FlightRecorder.removePeriodicEvent(periodicHook);
+            periodicHook = null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded stress run against one in-process GradeTracker.
+ * For each thread count, worker threads repeatedly bump a random student's
+ * grades (a read-modify-write of all four subjects under the student's
+ * lock), look students up by ID and occasionally build a class report.
+ * Afterwards it checks that no increment was lost and that no student
+ * ever ended up with its four subjects out of step.
+ *
+ * Usage: java -cp .:gson-2.10.1.jar TrackerStressHarness [students] [seconds] [maxThreads]
+ * Data is written to a temporary directory that is deleted afterwards.
+ */
+public class TrackerStressHarness {
+    private static final String[] CLASSES = { "First Year", "Second Year", "Third Year", "Fourth Year" };
+
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors() * 2;
+
+        System.out.printf("Students: %,d | Duration: %ds per run | Cores: %d%n", studentCount, seconds,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s | %-14s | %-10s | %s%n", "Threads", "Ops/sec", "Scaling", "Check");
+        run(studentCount, Math.max(1, seconds / 2), 1); // JIT warm-up, not reported
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            RunResult result = run(studentCount, seconds, threads);
+            if (baseline == 0) {
+                baseline = result.opsPerSecond;
+            }
+            System.out.printf("%-8d | %,14.0f | %9.2fx | %s%n", threads, result.opsPerSecond,
+                    result.opsPerSecond / baseline, result.check);
+        }
+    }
+
+    private static final class RunResult {
+        final double opsPerSecond;
+        final String check;
+
+        RunResult(double opsPerSecond, String check) {
+            this.opsPerSecond = opsPerSecond;
+            this.check = check;
+        }
+    }
+
+    private static RunResult run(int studentCount, int seconds, int threadCount) throws Exception {
+        Path dir = Files.createTempDirectory("tracker-stress");
+        GradeTracker tracker = new GradeTracker(dir.resolve("students.json").toString());
+        try {
+            List<Student> students = new ArrayList<>(studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                students.add(tracker.addStudent("Student " + i, CLASSES[i % CLASSES.length]));
+            }
+
+            LongAdder increments = new LongAdder();
+            LongAdder operations = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                Thread worker = new Thread(() -> work(tracker, students, deadline, increments, operations));
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            return new RunResult(operations.sum() / (double) seconds, verify(students, increments.sum()));
+        } finally {
+            tracker.close();
+            deleteRecursively(dir);
+        }
+    }
+
+    private static void work(GradeTracker tracker, List<Student> students, long deadline,
+            LongAdder increments, LongAdder operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Grade> grades = new HashMap<>();
+        while (System.nanoTime() < deadline) {
+            int dice = random.nextInt(1000);
+            Student student = students.get(random.nextInt(students.size()));
+            if (dice < 700) {
+                synchronized (student) {
+                    double next = Math.max(0, student.getSubjectGrades().get("Maths").getScore()) + 1;
+                    grades.clear();
+                    for (String subject : App.SUBJECTS) {
+                        grades.put(subject, Grade.graded(next));
+                    }
+                    student.addSubjectGrades(grades);
+                }
+                increments.increment();
+            } else if (dice < 999) {
+                tracker.findStudentById(student.getStudentId());
+            } else {
+                tracker.getClassReport(student.getStudentClass());
+            }
+            operations.increment();
+        }
+    }
+
+    /**
+     * @return "OK" if all checks pass, otherwise a description of the failure.
+     */
+    private static String verify(List<Student> students, long expectedIncrements) {
+        long total = 0;
+        int torn = 0;
+        for (Student student : students) {
+            Student copy = student.snapshot();
+            double maths = Math.max(0, copy.getSubjectGrades().get("Maths").getScore());
+            for (String subject : App.SUBJECTS) {
+                if (Math.max(0, copy.getSubjectGrades().get(subject).getScore()) != maths) {
+                    torn++;
+                    break;
+                }
+            }
+            total += (long) maths;
+        }
+        if (total != expectedIncrements) {
+            return "FAILED: expected " + expectedIncrements + " increments, found " + total;
+        }
+        if (torn > 0) {
+            return "FAILED: " + torn + " students with subjects out of step";
+        }
+        return "OK";
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
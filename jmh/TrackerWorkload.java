@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Default-package side of the JMH benchmarks; see bench.Workload.
+ */
+public class TrackerWorkload implements bench.Workload {
+    private static final String CLASS_NAME = DatasetGenerator.CLASSES[0];
+
+    private Path dir;
+    private Path dataFile;
+    private GradeTracker tracker;
+    private Student student;
+    private double nextScore;
+    private final String[] queries = new String[1024];
+    private int nextQuery;
+
+    @Override
+    public void setUp(int students, String format) throws IOException {
+        dir = Files.createTempDirectory("tracker-jmh");
+        dataFile = dir.resolve("students." + format);
+        DatasetGenerator.generate(dataFile, students, DatasetGenerator.DEFAULT_SEED);
+        tracker = new GradeTracker(dataFile.toString());
+        student = tracker.findStudentById("S1").orElseThrow();
+        Random random = new Random(DatasetGenerator.DEFAULT_SEED);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = "s" + (1 + random.nextInt(students));
+        }
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        tracker.close();
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Override
+    public int load() {
+        try (GradeTracker loaded = new GradeTracker(dataFile.toString())) {
+            return loaded.getClassNames().size();
+        }
+    }
+
+    @Override
+    public void saveAfterGradeChange() {
+        nextScore = nextScore >= Grade.MAX_SCORE ? 0 : nextScore + 1;
+        student.addSubjectGrade("Maths", Grade.graded(nextScore));
+        tracker.saveStudents();
+    }
+
+    @Override
+    public void compact() {
+        tracker.compact();
+    }
+
+    @Override
+    public int studentsByClass() {
+        return tracker.getStudentsByClass(CLASS_NAME).size();
+    }
+
+    @Override
+    public Object sortedClassReport() {
+        List<Student> rows = new ArrayList<>(tracker.getStudentsByClass(CLASS_NAME));
+        rows.sort(ClassRanking.REPORT_ORDER);
+        return rows;
+    }
+
+    @Override
+    public Object rankedClassReport() {
+        return tracker.getClassReport(CLASS_NAME);
+    }
+
+    @Override
+    public double totalsAndRemarks() {
+        double sum = 0;
+        for (Student s : tracker.getStudentsByClass(CLASS_NAME)) {
+            sum += s.getTotalMarks() + s.getRemark().length();
+        }
+        return sum;
+    }
+
+    @Override
+    public Object statisticsFooter() {
+        return ClassStatistics.compute(tracker.getStudentsByClass(CLASS_NAME));
+    }
+
+    @Override
+    public Object findStudent() {
+        nextQuery = (nextQuery + 1) & (queries.length - 1);
+        return tracker.findStudentById(queries[nextQuery]).orElseThrow();
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory report paths for one class (a quarter of the students), and
+ * single-student lookups by ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueryBenchmark {
+    @Param({ "10000", "100000", "1000000" })
+    public int students;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create();
+        workload.setUp(students, "json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public int getStudentsByClass() {
+        return workload.studentsByClass();
+    }
+
+    @Benchmark
+    public Object sortedClassReport() {
+        return workload.sortedClassReport();
+    }
+
+    @Benchmark
+    public Object rankedClassReport() {
+        return workload.rankedClassReport();
+    }
+
+    @Benchmark
+    public double totalsAndRemarks() {
+        return workload.totalsAndRemarks();
+    }
+
+    @Benchmark
+    public Object statisticsFooter() {
+        return workload.statisticsFooter();
+    }
+
+    @Benchmark
+    public Object findStudent() {
+        return workload.findStudent();
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+/**
+ * The tracker operations measured by the benchmarks.
+ *
+ * JMH refuses benchmark classes in the default package, and classes in a
+ * named package cannot refer to the tracker's default-package classes. So
+ * the benchmarks call the tracker through this interface, implemented by
+ * the default-package TrackerWorkload and created reflectively once per
+ * trial. Each call site sees a single implementation, so the JIT inlines
+ * through it.
+ */
+public interface Workload {
+    /**
+     * Generates a dataset in a fresh temporary directory and opens a tracker on it.
+     *
+     * @param students Number of students.
+     * @param format   "json", "bin" or "shards".
+     */
+    void setUp(int students, String format) throws Exception;
+
+    /**
+     * Closes the tracker and deletes the temporary directory.
+     */
+    void tearDown() throws Exception;
+
+    /** Opens and closes a second tracker on the dataset; returns its class count. */
+    int load();
+
+    /** Changes one grade and makes it durable with saveStudents(). */
+    void saveAfterGradeChange();
+
+    /** Writes a full snapshot of the data file. */
+    void compact();
+
+    /** getStudentsByClass for one class; returns the list size. */
+    int studentsByClass();
+
+    /** Copies a class and sorts it in report order, as the summary report once did. */
+    Object sortedClassReport();
+
+    /** Builds a class report from the live ranking with getClassReport. */
+    Object rankedClassReport();
+
+    /** Reads getTotalMarks and getRemark for every student in a class. */
+    double totalsAndRemarks();
+
+    /** Computes the statistics footer for a class. */
+    Object statisticsFooter();
+
+    /** findStudentById for the next of a fixed set of random IDs, typed in lower case. */
+    Object findStudent();
+
+    /**
+     * @return A new instance of the default-package implementation.
+     */
+    static Workload create() {
+        try {
+            return (Workload) Class.forName("TrackerWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("TrackerWorkload is not on the class path", e);
+        }
+    }
+}
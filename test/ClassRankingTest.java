@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Report order of ClassRanking, and that it follows grade changes.
+ */
+class ClassRankingTest {
+    @TempDir
+    Path dir;
+
+    private static Student student(String id, double maths, double science, double english) {
+        Student student = new Student(id, "Name " + id, "First Year");
+        student.addSubjectGrade("Maths", Grade.graded(maths));
+        student.addSubjectGrade("Science", Grade.graded(science));
+        student.addSubjectGrade("English", Grade.graded(english));
+        return student;
+    }
+
+    private static List<String> ids(List<Student> students) {
+        return students.stream().map(Student::getStudentId).collect(Collectors.toList());
+    }
+
+    @Test
+    void ordersByTotalThenMathsAndScienceThenId() {
+        ClassRanking ranking = new ClassRanking();
+        ranking.add(student("S1", 50, 50, 50)); // 150, 100
+        ranking.add(student("S2", 90, 90, 90)); // 270
+        ranking.add(student("S3", 40, 40, 70)); // 150, 80
+        ranking.add(student("S4", 50, 50, 50)); // 150, 100
+
+        assertEquals(Arrays.asList("S2", "S1", "S4", "S3"), ids(ranking.page(0, 10)));
+        assertEquals(Arrays.asList("S1", "S4"), ids(ranking.page(1, 2)));
+        assertEquals(Arrays.asList("S2"), ids(ranking.top(1)));
+    }
+
+    @Test
+    void repositionsAStudentAfterAGradeChange() {
+        ClassRanking ranking = new ClassRanking();
+        Student s1 = student("S1", 80, 80, 80);
+        Student s2 = student("S2", 60, 60, 60);
+        Student s3 = student("S3", 40, 40, 40);
+        ranking.add(s1);
+        ranking.add(s2);
+        ranking.add(s3);
+        assertEquals(3, ranking.rankOf(s3));
+
+        s3.addSubjectGrade("Maths", Grade.graded(100));
+        s3.addSubjectGrade("Science", Grade.graded(100));
+        ranking.update(s3);
+
+        assertEquals(Arrays.asList("S3", "S1", "S2"), ids(ranking.page(0, 3)));
+        assertEquals(1, ranking.rankOf(s3));
+        assertEquals(3, ranking.size());
+    }
+
+    @Test
+    void keysetPagingFollowsTheCursor() {
+        ClassRanking ranking = new ClassRanking();
+        for (int i = 1; i <= 5; i++) {
+            ranking.add(student("S" + i, i * 10, 0, 0));
+        }
+        List<Student> first = ranking.after(null, 2);
+        assertEquals(Arrays.asList("S5", "S4"), ids(first));
+        assertEquals(Arrays.asList("S3", "S2"), ids(ranking.after(first.get(1), 2)));
+    }
+
+    @Test
+    void trackerRankingFollowsGradeEntry() {
+        try (GradeTracker tracker = new GradeTracker(dir.resolve("students.json").toString())) {
+            Student top = tracker.addStudent("Top", "First Year");
+            Student bottom = tracker.addStudent("Bottom", "First Year");
+            top.addSubjectGrade("Maths", Grade.graded(90));
+            bottom.addSubjectGrade("Maths", Grade.graded(40));
+            assertEquals(Arrays.asList(top.getStudentId(), bottom.getStudentId()),
+                    ids(tracker.getRankedStudents("First Year")));
+
+            bottom.addSubjectGrade("English", Grade.graded(80));
+
+            assertEquals(Arrays.asList(bottom.getStudentId(), top.getStudentId()),
+                    ids(tracker.getRankedStudents("first year")));
+            assertEquals(1, tracker.getClassRank(bottom));
+            assertEquals(Arrays.asList(bottom.getStudentId(), top.getStudentId()),
+                    ids(tracker.getClassReport("First Year")));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay, truncation and rotation of the mutation journal.
+ */
+class MutationJournalTest {
+    private static final String A = "{\"op\":\"addClass\",\"name\":\"A\"}";
+    private static final String B = "{\"op\":\"addClass\",\"name\":\"B\"}";
+
+    @TempDir
+    Path dir;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Grade.Status.class, GradeTypeAdapter.STATUS)
+            .create();
+    private Path file;
+    private final List<MutationJournal> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("students.json.journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (MutationJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    private MutationJournal journal() {
+        MutationJournal journal = new MutationJournal(file, gson);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> names = new ArrayList<>();
+        journal().replay(record -> names.add(record.getName()));
+        return names;
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void replaysRecordsInOrder() throws IOException {
+        MutationJournal journal = journal();
+        journal.replay(record -> { });
+        journal.open();
+        journal.append(MutationJournal.Record.addClass("A"));
+        journal.append(MutationJournal.Record.addClass("B"));
+        journal.close();
+
+        assertEquals(Arrays.asList("A", "B"), replay());
+    }
+
+    @Test
+    void terminatesLastRecordMissingItsNewline() throws IOException {
+        write(A + "\n" + B);
+
+        assertEquals(Arrays.asList("A", "B"), replay());
+        assertEquals(A + "\n" + B + "\n", read());
+
+        MutationJournal journal = journal();
+        journal.replay(record -> { });
+        journal.open();
+        journal.append(MutationJournal.Record.addClass("C"));
+        journal.close();
+        assertEquals(Arrays.asList("A", "B", "C"), replay());
+    }
+
+    @Test
+    void truncatesTornRecordAtTheEnd() throws IOException {
+        write(A + "\n" + B.substring(0, 12));
+
+        assertEquals(Arrays.asList("A"), replay());
+        assertEquals(A + "\n", read());
+    }
+
+    @Test
+    void skipsDamagedLineAndKeepsLaterRecords() throws IOException {
+        write(A + "\nnot json\n" + B + "\n");
+
+        assertEquals(Arrays.asList("A", "B"), replay());
+        assertEquals(A + "\nnot json\n" + B + "\n", read());
+    }
+
+    @Test
+    void emptyJournalReplaysNothing() throws IOException {
+        write("");
+
+        assertEquals(new ArrayList<String>(), replay());
+        assertEquals("", read());
+    }
+
+    @Test
+    void rotationKeepsEveryRecord() throws IOException {
+        MutationJournal journal = journal();
+        journal.replay(record -> { });
+        journal.open();
+        journal.append(MutationJournal.Record.addClass("A"));
+        journal.rotate();
+        journal.append(MutationJournal.Record.addClass("B"));
+        journal.finishRotation();
+        journal.append(MutationJournal.Record.addClass("C"));
+        journal.close();
+
+        assertTrue(Files.exists(dir.resolve("students.json.journal.1")));
+        assertEquals(Arrays.asList("A", "B", "C"), replay());
+    }
+
+    @Test
+    void replayFinishesAnInterruptedRotation() throws IOException {
+        MutationJournal journal = journal();
+        journal.replay(record -> { });
+        journal.open();
+        journal.append(MutationJournal.Record.addClass("A"));
+        journal.rotate();
+        journal.append(MutationJournal.Record.addClass("B"));
+        journal.close();
+        assertTrue(Files.exists(dir.resolve("students.json.journal.new")));
+
+        List<String> names = new ArrayList<>();
+        assertTrue(journal().replay(record -> names.add(record.getName())));
+        assertEquals(Arrays.asList("A", "B"), names);
+        assertFalse(Files.exists(dir.resolve("students.json.journal.new")));
+    }
+
+    @Test
+    void sizeCountsUtf8Bytes() throws IOException {
+        MutationJournal journal = journal();
+        journal.replay(record -> { });
+        journal.open();
+        journal.append(MutationJournal.Record.addClass("Première année"));
+        journal.sync();
+
+        assertEquals(Files.size(file), journal.getSize());
+        assertEquals(Files.size(file), journal.getBytesAppended());
+    }
+}
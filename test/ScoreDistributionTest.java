@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Nearest-rank percentiles, bands and merging of ScoreDistribution.
+ */
+class ScoreDistributionTest {
+    private static ScoreDistribution oneToHundred() {
+        ScoreDistribution distribution = new ScoreDistribution();
+        for (int score = 1; score <= 100; score++) {
+            distribution.add(score);
+        }
+        return distribution;
+    }
+
+    @Test
+    void emptyDistributionReadsAsZero() {
+        ScoreDistribution distribution = new ScoreDistribution();
+        assertEquals(0, distribution.getCount());
+        assertEquals(0.0, distribution.getMean());
+        assertEquals(0.0, distribution.getMedian());
+        assertArrayEquals(new double[] {0, 0}, distribution.getPercentiles(25, 75));
+    }
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        ScoreDistribution distribution = oneToHundred();
+        assertEquals(100, distribution.getCount());
+        assertEquals(50.5, distribution.getMean(), 1e-9);
+        assertEquals(1.0, distribution.getMin());
+        assertEquals(100.0, distribution.getMax());
+        assertEquals(50.0, distribution.getMedian());
+        assertArrayEquals(new double[] {1, 10, 25, 75, 90, 100},
+                distribution.getPercentiles(0, 10, 25, 75, 90, 100));
+    }
+
+    @Test
+    void smallCountsRoundTheRankUp() {
+        ScoreDistribution distribution = new ScoreDistribution();
+        distribution.add(20);
+        distribution.add(40);
+        distribution.add(60);
+        assertEquals(40.0, distribution.getMedian());
+        assertEquals(60.0, distribution.getPercentile(90));
+        assertEquals(20.0, distribution.getPercentile(33));
+        assertEquals(40.0, distribution.getPercentile(34));
+    }
+
+    @Test
+    void keepsScoresToATenthOfAPoint() {
+        ScoreDistribution distribution = new ScoreDistribution();
+        distribution.add(72.5);
+        distribution.add(72.6);
+        assertEquals(72.5, distribution.getMin());
+        assertEquals(72.6, distribution.getMax());
+    }
+
+    @Test
+    void removeTakesAScoreBackOut() {
+        ScoreDistribution distribution = oneToHundred();
+        distribution.remove(100);
+        distribution.add(10);
+        assertEquals(100, distribution.getCount());
+        assertEquals(99.0, distribution.getMax());
+        assertEquals(49.0, distribution.getMedian());
+    }
+
+    @Test
+    void bandsAreTenPointsWideWithHundredInTheLast() {
+        long[] bands = oneToHundred().getBands(10);
+        assertEquals(10, bands.length);
+        assertEquals(9, bands[0]);
+        for (int band = 1; band < 9; band++) {
+            assertEquals(10, bands[band]);
+        }
+        assertEquals(11, bands[9]);
+    }
+
+    @Test
+    void mergeAddsTheCounts() {
+        ScoreDistribution low = new ScoreDistribution();
+        ScoreDistribution high = new ScoreDistribution();
+        for (int score = 1; score <= 50; score++) {
+            low.add(score);
+            high.add(score + 50);
+        }
+        low.merge(high);
+        assertEquals(100, low.getCount());
+        assertEquals(50.0, low.getMedian());
+        assertEquals(50, high.getCount());
+    }
+}
@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StudentMap with canonical "S<n>" IDs, kept in pages, and other IDs, kept in the overflow map.
+ */
+class StudentMapTest {
+    private static Student student(String id) {
+        return new Student(id, "Name " + id, "First Year");
+    }
+
+    @Test
+    void parsesOnlyCanonicalIds() {
+        assertEquals(42, StudentMap.parseNumber("S42", false));
+        assertEquals(-1, StudentMap.parseNumber("s42", false));
+        assertEquals(42, StudentMap.parseNumber("s42", true));
+        assertEquals(-1, StudentMap.parseNumber("S007", false));
+        assertEquals(-1, StudentMap.parseNumber("S", false));
+        assertEquals(-1, StudentMap.parseNumber("S4x", false));
+        assertEquals(-1, StudentMap.parseNumber("S99999999999", false));
+    }
+
+    @Test
+    void storesCanonicalAndOverflowIds() {
+        StudentMap map = new StudentMap();
+        Student canonical = student("S42");
+        Student padded = student("S007");
+        Student other = student("EXT-1");
+        map.put("S42", canonical);
+        map.put("S007", padded);
+        map.put("EXT-1", other);
+
+        assertEquals(3, map.size());
+        assertSame(canonical, map.get("S42"));
+        assertSame(padded, map.get("S007"));
+        assertSame(other, map.get("EXT-1"));
+        assertNull(map.get("S7"));
+        assertNull(map.get("S43"));
+        assertTrue(map.containsKey("S007"));
+    }
+
+    @Test
+    void findIgnoresTheCaseOfTheId() {
+        StudentMap map = new StudentMap();
+        Student canonical = student("S5");
+        Student padded = student("S007");
+        map.put("S5", canonical);
+        map.put("S007", padded);
+
+        assertSame(canonical, map.find("s5"));
+        assertSame(padded, map.find("s007"));
+        assertNull(map.find("s6"));
+    }
+
+    @Test
+    void maxNumberCountsNumberedOverflowIds() {
+        StudentMap map = new StudentMap();
+        assertEquals(0, map.getMaxNumber());
+
+        map.put("S007", student("S007"));
+        assertEquals(7, map.getMaxNumber());
+        map.put("S3", student("S3"));
+        assertEquals(7, map.getMaxNumber());
+        map.putIfAbsent("S12", student("S12"));
+        assertEquals(12, map.getMaxNumber());
+        map.computeIfAbsent("S0100", StudentMapTest::student);
+        assertEquals(100, map.getMaxNumber());
+        map.put("EXT-1", student("EXT-1"));
+        assertEquals(100, map.getMaxNumber());
+    }
+
+    @Test
+    void putIfAbsentAndComputeIfAbsentKeepTheFirstStudent() {
+        StudentMap map = new StudentMap();
+        Student first = student("S9");
+        assertNull(map.putIfAbsent("S9", first));
+        assertSame(first, map.putIfAbsent("S9", student("S9")));
+        assertSame(first, map.computeIfAbsent("S9", id -> {
+            throw new AssertionError("mapping function called for a present key");
+        }));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeAndClear() {
+        StudentMap map = new StudentMap();
+        map.put("S1", student("S1"));
+        map.put("S007", student("S007"));
+
+        assertFalse(map.remove("S1", student("S1")));
+        assertTrue(map.remove("S1") != null);
+        assertTrue(map.remove("S007") != null);
+        assertEquals(0, map.size());
+
+        map.put("S4", student("S4"));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.getMaxNumber());
+    }
+
+    @Test
+    void iteratesCanonicalIdsInOrderThenOverflow() {
+        StudentMap map = new StudentMap();
+        map.put("S10000", student("S10000"));
+        map.put("S2", student("S2"));
+        map.put("S1", student("S1"));
+        map.put("S007", student("S007"));
+
+        StringBuilder order = new StringBuilder();
+        Set<String> keys = new HashSet<>();
+        for (String key : map.keySet()) {
+            order.append(key).append(' ');
+            keys.add(key);
+        }
+        assertEquals("S1 S2 S10000 S007 ", order.toString());
+        assertEquals(4, keys.size());
+    }
+}
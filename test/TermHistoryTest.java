@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Closing terms and reading them back from disk.
+ */
+class TermHistoryTest {
+    @TempDir
+    Path dir;
+
+    private static Student student(String id, String className, double maths) {
+        Student student = new Student(id, "Name " + id, className);
+        student.addSubjectGrade("Maths", Grade.graded(maths));
+        return student;
+    }
+
+    @Test
+    void closedTermsSurviveAReload() throws IOException {
+        Path directory = dir.resolve("students.json.history");
+        Student s1 = student("S1", "First Year", 60);
+        Student s2 = student("S2", "First Year", 80);
+        Student imported = student("S007", "Second Year", 70);
+        List<Student> students = new ArrayList<>(Arrays.asList(s1, s2, imported));
+
+        TermHistory history = new TermHistory(directory);
+        history.closeTerm("2025 Term 1", students);
+        s1.addSubjectGrade("Maths", Grade.graded(90));
+        s2.addSubjectGrade("Science", Grade.ABSENT);
+        students.add(student("S3", "First Year", 50));
+        history.closeTerm("2025 Term 2", students);
+
+        TermHistory reloaded = new TermHistory(directory);
+        List<TermHistory.Term> terms = reloaded.getTerms();
+        assertEquals(Arrays.asList("2025 Term 1", "2025 Term 2"),
+                terms.stream().map(TermHistory.Term::getName).collect(Collectors.toList()));
+
+        TermHistory.Term first = terms.get(0);
+        TermHistory.Term second = reloaded.getTerm("2025 term 2");
+        assertEquals(3, first.getStudentCount());
+        assertEquals(4, second.getStudentCount());
+        assertEquals(3, second.getChangedCount());
+        assertEquals(60.0, first.get("S1").getGrade("Maths").getScore());
+        assertEquals(90.0, second.get("s1").getGrade("Maths").getScore());
+        assertSame(Grade.ABSENT, second.get("S2").getGrade("Science"));
+        assertEquals(70.0, second.get("S007").getGrade("Maths").getScore());
+        assertNull(first.get("S3"));
+        assertEquals(Arrays.asList("First Year", "Second Year"), second.getClassNames());
+        assertEquals(Arrays.asList("S1", "S2", "S3"), second.getClassReport("first year").stream()
+                .map(Student::getStudentId).collect(Collectors.toList()));
+
+        Map<String, Student> trend = reloaded.getTrend("S1");
+        assertEquals(Arrays.asList("2025 Term 1", "2025 Term 2"), new ArrayList<>(trend.keySet()));
+        assertEquals(90.0, trend.get("2025 Term 2").getTotalMarks());
+    }
+
+    @Test
+    void rejectsEmptyAndRepeatedNames() throws IOException {
+        TermHistory history = new TermHistory(dir.resolve("history"));
+        List<Student> students = Arrays.asList(student("S1", "First Year", 60));
+        history.closeTerm("Term 1", students);
+
+        assertThrows(IllegalArgumentException.class, () -> history.closeTerm(" ", students));
+        assertThrows(IllegalArgumentException.class, () -> history.closeTerm("term 1", students));
+        assertEquals(1, new TermHistory(dir.resolve("history")).getTerms().size());
+    }
+
+    @Test
+    void noHistoryDirectoryMeansNoTerms() {
+        assertEquals(0, new TermHistory(dir.resolve("missing")).getTerms().size());
+    }
+}